@@ -1,6 +1,9 @@
 package Graphs;
 
 import java.util.*;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
 
 /**
  * A class that implements a directed graph.
@@ -11,34 +14,194 @@ import java.util.*;
  * The edges of the graph are not labeled.
  *
  * Representation of edges via Adjacency List.
+ * Each vertex keeps its out-neighbors in a growable int array,
+ * so adding edges and scanning neighbors doesn't box Integers.
+ * Edge weights, if any, are kept in parallel double arrays.
  */
 public class AdjacencyList extends Graph{
-    // Mapping each vertex to its neighbor vertices
-    Map<Integer, List<Integer>> adjMap;
+    // Neighbor buffer of each vertex, indexed by vertex.
+    // Only the first outCount[v] entries of adj[v] are neighbors,
+    // the rest is spare capacity for later edges.
+    private int[][] adj;
+    // Number of out-neighbors stored in each buffer
+    private int[] outCount;
+    // Optional reverse index: in-neighbor buffer of each vertex, or null
+    // when incoming edges are not tracked
+    private int[][] inAdj;
+    // Number of in-neighbors stored in each reverse buffer
+    private int[] inCount;
+    // Edge weights, parallel to adj: weights[v][i] is the weight of edge v -> adj[v][i].
+    // null until the first weighted edge is added; unweighted edges weigh 1.
+    private double[][] weights;
 
     public AdjacencyList(){
-        adjMap = new HashMap<Integer, List<Integer>>();
+        this(false);
+    }
+
+    /**
+     * Create an empty Graph, optionally keeping an index of incoming edges.
+     * The index makes getInNeighbors cost O(in-degree) instead of O(V+E),
+     * at the price of storing every edge twice.
+     * @param trackInEdges true to keep the incoming-edge index.
+     */
+    public AdjacencyList(boolean trackInEdges){
+        adj = new int[5][];
+        outCount = new int[5];
+        if (trackInEdges){
+            inAdj = new int[5][];
+            inCount = new int[5];
+        }
+    }
+
+    /**
+     * @return true if this Graph keeps an index of incoming edges.
+     */
+    public boolean tracksInEdges(){
+        return inAdj != null;
     }
 
     /**
      * Implement the abstract method for adding a vertex.
+     * If need to increase the vertex arrays, double them to amortize cost.
      */
     @Override
     public void implementAddVertex() {
         // Get vertices number in the Graph
         int v = getVertices();
-        List<Integer> neighbor = new ArrayList<Integer>();
-        adjMap.put(v,neighbor);
+        if (v >= adj.length){
+            adj = Arrays.copyOf(adj, v * 2);
+            outCount = Arrays.copyOf(outCount, v * 2);
+            if (inAdj != null){
+                inAdj = Arrays.copyOf(inAdj, v * 2);
+                inCount = Arrays.copyOf(inCount, v * 2);
+            }
+            if (weights != null){
+                weights = Arrays.copyOf(weights, v * 2);
+            }
+        }
+        adj[v] = new int[2];
+        if (inAdj != null){
+            inAdj[v] = new int[2];
+        }
+        if (weights != null){
+            weights[v] = new double[2];
+        }
     }
 
     /**
      * Implement the abstract method for adding an edge.
+     * A full neighbor buffer is doubled, so adding edges is amortized O(1).
+     * When incoming edges are tracked, vertex1 is also added to
+     * the reverse buffer of vertex2.
      * @param vertex1 the index of the start point for the edge.
      * @param vertex2 the index of the end point for the edge.
      */
     @Override
     public void implementAddEdge(int vertex1, int vertex2) {
-        adjMap.get(vertex1).add(vertex2);
+        if (weights != null){
+            weights[vertex1] = append(weights[vertex1], outCount[vertex1], 1.0);
+        }
+        adj[vertex1] = append(adj[vertex1], outCount[vertex1]++, vertex2);
+        if (inAdj != null){
+            inAdj[vertex2] = append(inAdj[vertex2], inCount[vertex2]++, vertex1);
+        }
+    }
+
+    /**
+     * Add a weighted edge. The first weighted edge turns on weight storage,
+     * giving every edge added before it weight 1.
+     * @param vertex1 the index of the start point for the edge.
+     * @param vertex2 the index of the end point for the edge.
+     * @param weight the weight of the edge.
+     */
+    @Override
+    public void implementAddEdge(int vertex1, int vertex2, double weight) {
+        if (weights == null){
+            weights = new double[adj.length][];
+            for (int v = 0; v < getVertices(); v++){
+                weights[v] = new double[adj[v].length];
+                Arrays.fill(weights[v], 0, outCount[v], 1.0);
+            }
+        }
+        weights[vertex1] = append(weights[vertex1], outCount[vertex1], weight);
+        adj[vertex1] = append(adj[vertex1], outCount[vertex1]++, vertex2);
+        if (inAdj != null){
+            inAdj[vertex2] = append(inAdj[vertex2], inCount[vertex2]++, vertex1);
+        }
+    }
+
+    // Store value at buffer[size], doubling the buffer if it's full
+    private static int[] append(int[] buffer, int size, int value){
+        if (size == buffer.length){
+            buffer = Arrays.copyOf(buffer, size * 2);
+        }
+        buffer[size] = value;
+        return buffer;
+    }
+
+    private static double[] append(double[] buffer, int size, double value){
+        if (size == buffer.length){
+            buffer = Arrays.copyOf(buffer, size * 2);
+        }
+        buffer[size] = value;
+        return buffer;
+    }
+
+    /**
+     * Grow the vertex arrays once for a known number of vertices.
+     * @param capacity total number of vertices the Graph will have.
+     */
+    @Override
+    protected void ensureVertexCapacity(int capacity){
+        if (capacity > adj.length){
+            adj = Arrays.copyOf(adj, capacity);
+            outCount = Arrays.copyOf(outCount, capacity);
+            if (inAdj != null){
+                inAdj = Arrays.copyOf(inAdj, capacity);
+                inCount = Arrays.copyOf(inCount, capacity);
+            }
+            if (weights != null){
+                weights = Arrays.copyOf(weights, capacity);
+            }
+        }
+    }
+
+    /**
+     * Add many edges with a parallel scatter.
+     * Every neighbor buffer is first grown to its final size, then each edge
+     * claims a slot in its start vertex's buffer with an atomic cursor.
+     * Edges added together may therefore appear in any order among themselves.
+     * A weighted Graph adds them one by one, to keep weights next to their edges.
+     * @param src start points of the edges.
+     * @param dst end points of the edges.
+     * @param outCounts number of the new edges that start at each vertex.
+     * @param inCounts number of the new edges that end at each vertex.
+     */
+    @Override
+    protected void implementAddEdges(int[] src, int[] dst, int[] outCounts, int[] inCounts){
+        if (weights != null){
+            super.implementAddEdges(src, dst, outCounts, inCounts);
+            return;
+        }
+        scatter(adj, outCount, src, dst, outCounts);
+        if (inAdj != null){
+            scatter(inAdj, inCount, dst, src, inCounts);
+        }
+    }
+
+    // Append to[i] to the buffer of from[i], for every i, in parallel
+    private static void scatter(int[][] buffers, int[] sizes, int[] from, int[] to, int[] added){
+        int n = added.length;
+        AtomicIntegerArray cursor = new AtomicIntegerArray(n);
+        IntStream.range(0, n).parallel().forEach(v -> {
+            if (added[v] > 0 && sizes[v] + added[v] > buffers[v].length){
+                buffers[v] = Arrays.copyOf(buffers[v], sizes[v] + added[v]);
+            }
+            cursor.set(v, sizes[v]);
+        });
+        IntStream.range(0, from.length).parallel().forEach(i ->
+                buffers[from[i]][cursor.getAndIncrement(from[i])] = to[i]);
+        IntStream.range(0, n).parallel().forEach(v -> sizes[v] += added[v]);
     }
 
     /**
@@ -52,13 +215,52 @@ public class AdjacencyList extends Graph{
      */
     @Override
     public List<Integer> getNeighbors(int v) {
-        List<Integer> neighbors = new ArrayList<Integer>();
-        neighbors = adjMap.get(v);
+        // Copy the buffer so callers can't change our internal Graph structure
+        List<Integer> neighbors = new ArrayList<Integer>(outCount[v]);
+        for (int i = 0; i < outCount[v]; i++){
+            neighbors.add(adj[v][i]);
+        }
         return neighbors;
-        /*
-        Note: return adjMap.get(v); will do the work for us but
-        it exposes our internal Graph structure.
-         */
+    }
+
+    /**
+     * Visit the out-neighbors of v straight from its int buffer,
+     * without boxing or copying.
+     * @param v Index of vertex.
+     * @param action called with the index of each out-neighbor.
+     */
+    @Override
+    public void forEachNeighbor(int v, IntConsumer action){
+        int[] neighbors = adj[v];
+        for (int i = 0; i < outCount[v]; i++){
+            action.accept(neighbors[i]);
+        }
+    }
+
+    /**
+     * Visit the out-neighbors of v together with the weights of the edges to them.
+     * @param v Index of vertex.
+     * @param action called with each out-neighbor and edge weight.
+     */
+    @Override
+    public void forEachWeightedNeighbor(int v, EdgeConsumer action){
+        if (weights == null){
+            super.forEachWeightedNeighbor(v, action);
+            return;
+        }
+        int[] neighbors = adj[v];
+        double[] edgeWeights = weights[v];
+        for (int i = 0; i < outCount[v]; i++){
+            action.accept(neighbors[i], edgeWeights[i]);
+        }
+    }
+
+    /**
+     * @return true once a weighted edge has been added.
+     */
+    @Override
+    public boolean isWeighted(){
+        return weights != null;
     }
 
     /**
@@ -67,19 +269,25 @@ public class AdjacencyList extends Graph{
      * If there are multiple edges between the vertex
      * and one of its in-neighbors, this neighbor
      * appears once in the list for each of these edges.
+     * Without the incoming-edge index all edges have to be scanned.
      * @param v Index of vertex.
      * @return  List<Integer> a list of indices of vertices.
      */
     @Override
     public List<Integer> getInNeighbors(int v) {
         List<Integer> inNeighbor = new ArrayList<Integer>();
-        Set<Integer> keys = adjMap.keySet();
-        for(Integer u: keys){
+        if (inAdj != null){
+            for (int i = 0; i < inCount[v]; i++){
+                inNeighbor.add(inAdj[v][i]);
+            }
+            return inNeighbor;
+        }
+        for(int u = 0; u < getVertices(); u++){
             //iterate through all edges in u's adjacency list and
             //add u to the inNeighbor list of v whenever an edge
             //with startpoint u has endpoint v.
-            for(Integer z: adjMap.get(u)){
-                if (v == z){
+            for(int i = 0; i < outCount[u]; i++){
+                if (v == adj[u][i]){
                     inNeighbor.add(u);
                 }
             }
@@ -87,6 +295,24 @@ public class AdjacencyList extends Graph{
         return inNeighbor;
     }
 
+    /**
+     * Visit the in-neighbors of v, from the reverse buffer when
+     * incoming edges are tracked.
+     * @param v Index of vertex.
+     * @param action called with the index of each in-neighbor.
+     */
+    @Override
+    public void forEachInNeighbor(int v, IntConsumer action){
+        if (inAdj == null){
+            super.forEachInNeighbor(v, action);
+            return;
+        }
+        int[] inNeighbors = inAdj[v];
+        for (int i = 0; i < inCount[v]; i++){
+            action.accept(inNeighbors[i]);
+        }
+    }
+
     /**
      * Implement the abstract method for finding all
      * vertices reachable by two hops from v.
@@ -96,9 +322,11 @@ public class AdjacencyList extends Graph{
     @Override
     public List<Integer> getDistance2(int v) {
         List<Integer> twoHop = new ArrayList<Integer>();
-        List<Integer> oneHop = this.getNeighbors(v);
-        for (Integer i: oneHop){
-            twoHop.addAll(this.getNeighbors(i));
+        for (int i = 0; i < outCount[v]; i++){
+            int u = adj[v][i];
+            for (int j = 0; j < outCount[u]; j++){
+                twoHop.add(adj[u][j]);
+            }
         }
         return twoHop;
     }
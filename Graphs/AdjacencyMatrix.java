@@ -1,7 +1,12 @@
 package Graphs;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
 
 /**
  * A class that implements a directed graph.
@@ -9,29 +14,132 @@ import java.util.List;
  * The graph may have self-loops, parallel edges.
  * Vertices are labeled by integers 0 .. n-1
  * and don't have String labels.
- * The edges of the graph are not labeled.
+ * The edges of the graph are not labeled, but may carry weights.
  *
  * Representation of edges via an adjacency matrix.
+ * The matrix is a bitset: each row is a run of longs in one flat array,
+ * one bit per cell, so a 50k vertex graph needs 32 times less memory than
+ * int cells and neighbor scans skip 64 empty cells at a time.
+ * Parallel edges are rare, so only their extra multiplicity is kept
+ * in a side map.
+ * Weights are kept in a side map as well, only for edges that were added
+ * with one; all other edges weigh 1.
+ * Optionally the transposed matrix is kept as well, so in-neighbor scans
+ * walk a row instead of testing one bit in every row.
  */
 public class AdjacencyMatrix extends Graph{
-    // Adjacency Matrix is represented as a 2D Array
-    private int[][] adjMatrix;
+    // Rows of the matrix, wordsPerRow longs each, stored one after another.
+    // Bit (v & 63) of word (u * wordsPerRow + (v >>> 6)) is set when u -> v is an edge.
+    private long[] bits;
+    // Number of rows (and columns) the matrix has room for, a multiple of 64
+    private int capacity;
+    // Number of longs in each row
+    private int wordsPerRow;
+    // Number of edges u -> v beyond the first one, keyed by edgeKey(u, v)
+    private Map<Long, Integer> extraEdges;
+    // hasExtraEdges[u] is true once some edge out of u has a parallel copy,
+    // so rows without one never look in the map
+    private boolean[] hasExtraEdges;
+    // Optional transposed matrix, laid out like bits: bit (u & 63) of word
+    // (v * wordsPerRow + (u >>> 6)) is set when u -> v is an edge. null when
+    // incoming edges are not tracked.
+    private long[] inBits;
+    // Weights of every copy of the edge u -> v, keyed by edgeKey(u, v), for
+    // edges added with a weight. Missing copies at the end weigh 1. null until
+    // the first weighted edge is added.
+    private Map<Long, double[]> weights;
+    // hasWeights[u] is true once some edge out of u has an entry in weights
+    private boolean[] hasWeights;
 
     public AdjacencyMatrix(){
-        adjMatrix = new int[5][5];
+        this(false);
     }
 
+    /**
+     * Create an empty Graph, optionally keeping the transposed matrix.
+     * It makes getInNeighbors cost O(V / 64 + in-degree) instead of reading
+     * a word from every row, at the price of twice the memory.
+     * @param trackInEdges true to keep the transposed matrix.
+     */
+    public AdjacencyMatrix(boolean trackInEdges){
+        capacity = 64;
+        wordsPerRow = 1;
+        bits = new long[capacity * wordsPerRow];
+        extraEdges = new HashMap<Long, Integer>();
+        hasExtraEdges = new boolean[capacity];
+        hasWeights = new boolean[capacity];
+        if (trackInEdges){
+            inBits = new long[capacity * wordsPerRow];
+        }
+    }
+
+    /**
+     * @return true if this Graph keeps the transposed matrix for incoming edges.
+     */
+    public boolean tracksInEdges(){
+        return inBits != null;
+    }
+
+    private static long edgeKey(int vertex1, int vertex2){
+        return ((long) vertex1 << 32) | vertex2;
+    }
 
     /**
      * Implement the abstract method for adding an edge.
      * Allows for multiple edges between two points:
-     * the entry at row vertex1, column vertex2 stores the number of such edges.
+     * the first edge sets the bit at row vertex1, column vertex2 and
+     * every further one is counted in the side map.
      * @param vertex1 the index of the start point for the edge.
      * @param vertex2 the index of the end point for the edge.
      */
     @Override
     public void implementAddEdge(int vertex1, int vertex2) {
-        adjMatrix[vertex1][vertex2] += 1;
+        int word = vertex1 * wordsPerRow + (vertex2 >>> 6);
+        long mask = 1L << vertex2;
+        if ((bits[word] & mask) == 0){
+            bits[word] |= mask;
+            if (inBits != null){
+                inBits[vertex2 * wordsPerRow + (vertex1 >>> 6)] |= 1L << vertex1;
+            }
+        } else {
+            extraEdges.merge(edgeKey(vertex1, vertex2), 1, Integer::sum);
+            hasExtraEdges[vertex1] = true;
+        }
+        if (hasWeights[vertex1]){
+            double[] copies = weights.get(edgeKey(vertex1, vertex2));
+            if (copies != null){
+                // Keep the weights lined up with the copies
+                copies = Arrays.copyOf(copies, copies.length + 1);
+                copies[copies.length - 1] = 1.0;
+                weights.put(edgeKey(vertex1, vertex2), copies);
+            }
+        }
+    }
+
+    /**
+     * Add a weighted edge. Its weight goes into the side map;
+     * earlier copies of the same edge without a weight weigh 1.
+     * @param vertex1 the index of the start point for the edge.
+     * @param vertex2 the index of the end point for the edge.
+     * @param weight the weight of the edge.
+     */
+    @Override
+    public void implementAddEdge(int vertex1, int vertex2, double weight) {
+        int earlier = countEdges(vertex1, vertex2);
+        implementAddEdge(vertex1, vertex2);
+        if (weights == null){
+            weights = new HashMap<Long, double[]>();
+        }
+        long key = edgeKey(vertex1, vertex2);
+        double[] copies = weights.get(key);
+        if (copies == null){
+            copies = new double[earlier + 1];
+            Arrays.fill(copies, 1.0);
+        }
+        // implementAddEdge already appended weight 1 to an existing entry
+        copies[earlier] = weight;
+        weights.put(key, copies);
+        hasWeights[vertex1] = true;
     }
 
     /**
@@ -42,39 +150,63 @@ public class AdjacencyMatrix extends Graph{
     public void implementAddVertex() {
         // Getting the number of vertices in the Graph
         int vertex = getVertices();
-        /**
-         * 1. check vertex number if it's equal or larger than adjMatrix's size.
-         *
-         * a)
-         * 1. if it's equal or larger we can't create a new vertex and add that to adjMatrix.
-         * 2. So we need to create a new matrix with bigger size and add all those previous values to
-         * the new matrix (As a rule of thumb the new matrix's size will be 2*vertices always
-         * as it prevents not frequently creating a new array).
-         * 3. finally assign our adjMatrix to the newly created matrix.
-         *
-         * b)
-         * 1. if the vertex number is less than adjMatrix's size, we don't need to create new matrix
-         * 2. we can add that vertex to matrix
-         */
-        if(vertex >= adjMatrix.length){
-            // Creating new 2D array with bigger size
-            int[][] matrix = new int[vertex*2][vertex*2];
-            // Copying all the previous values from adjMatrix to new matrix.
-            /*
-            loop conditional check should be adjMatrix's length
-            because if you use new matrix's length there will be no entries for adjMatrix for the increased size
-            (It'll cause IndexOutOfBounds exception).
-             */
-            for (int i=0; i<adjMatrix.length; i++){
-                for (int j=0; j<adjMatrix.length; j++){
-                    matrix[i][j] = adjMatrix[i][j];
-                }
-            }
-            // Assign AdjacencyMatrix to created new matrix
-            adjMatrix = matrix;
+        if(vertex >= capacity){
+            resize(capacity * 2);
         }
     }
 
+    /**
+     * Grow the matrix once for a known number of vertices.
+     * @param vertices total number of vertices the Graph will have.
+     */
+    @Override
+    protected void ensureVertexCapacity(int vertices){
+        if (vertices > capacity){
+            // round up to whole words
+            resize((vertices + 63) & ~63);
+        }
+    }
+
+    private void resize(int newCapacity){
+        int newWordsPerRow = newCapacity >>> 6;
+        // All rows live in one array, so the whole matrix must fit in an int index.
+        // Row offsets u * wordsPerRow are below this size and can't overflow then.
+        long size = (long) newCapacity * newWordsPerRow;
+        if (size > Integer.MAX_VALUE - 8){
+            throw new IllegalStateException("An AdjacencyMatrix can't hold " + newCapacity + " vertices");
+        }
+        bits = widen(bits, (int) size, newWordsPerRow);
+        if (inBits != null){
+            inBits = widen(inBits, (int) size, newWordsPerRow);
+        }
+        hasExtraEdges = Arrays.copyOf(hasExtraEdges, newCapacity);
+        hasWeights = Arrays.copyOf(hasWeights, newCapacity);
+        capacity = newCapacity;
+        wordsPerRow = newWordsPerRow;
+    }
+
+    private long[] widen(long[] rows, int size, int newWordsPerRow){
+        long[] matrix = new long[size];
+        // Each old row is copied in one go to the start of its new, wider row
+        for (int row = 0; row < capacity; row++){
+            System.arraycopy(rows, row * wordsPerRow, matrix, row * newWordsPerRow, wordsPerRow);
+        }
+        return matrix;
+    }
+
+    /**
+     * Number of edges from vertex1 to vertex2.
+     * @param vertex1 the index of the start point.
+     * @param vertex2 the index of the end point.
+     * @return the multiplicity of the edge, 0 if there is none.
+     */
+    public int countEdges(int vertex1, int vertex2){
+        if ((bits[vertex1 * wordsPerRow + (vertex2 >>> 6)] & (1L << vertex2)) == 0){
+            return 0;
+        }
+        return 1 + extraEdges.getOrDefault(edgeKey(vertex1, vertex2), 0);
+    }
+
     /**
      * Implement the abstract method for finding all
      * out-neighbors of a vertex.
@@ -89,15 +221,70 @@ public class AdjacencyMatrix extends Graph{
     public List<Integer> getNeighbors(int v) {
         // Declare and initialize List to store and return out neighbors
         List<Integer> outNeighbors = new ArrayList<Integer>();
-        // Go to row v to find all out neighbors
-        for (int i=0; i<adjMatrix.length; i++){
-            int edges = adjMatrix[v][i];
-            while (edges > 0){
-                outNeighbors.add(i);
-                edges--;
+        forEachNeighbor(v, outNeighbors::add);
+        return outNeighbors;
+    }
+
+    /**
+     * Visit the out-neighbors of v by walking the set bits of row v.
+     * Empty words are skipped with a single comparison.
+     * @param v Index of vertex.
+     * @param action called with the index of each out-neighbor.
+     */
+    @Override
+    public void forEachNeighbor(int v, IntConsumer action){
+        int rowStart = v * wordsPerRow;
+        int usedWords = (getVertices() + 63) >>> 6;
+        boolean extra = hasExtraEdges[v];
+        for (int w = 0; w < usedWords; w++){
+            long word = bits[rowStart + w];
+            while (word != 0){
+                int i = (w << 6) + Long.numberOfTrailingZeros(word);
+                int edges = extra ? countEdges(v, i) : 1;
+                while (edges > 0){
+                    action.accept(i);
+                    edges--;
+                }
+                // clear the lowest set bit
+                word &= word - 1;
+            }
+        }
+    }
+
+    /**
+     * Visit the out-neighbors of v with the weights of the edges to them.
+     * Rows without weighted edges never look in the weight map.
+     * @param v Index of vertex.
+     * @param action called with each out-neighbor and edge weight.
+     */
+    @Override
+    public void forEachWeightedNeighbor(int v, EdgeConsumer action){
+        if (!hasWeights[v]){
+            super.forEachWeightedNeighbor(v, action);
+            return;
+        }
+        int rowStart = v * wordsPerRow;
+        int usedWords = (getVertices() + 63) >>> 6;
+        for (int w = 0; w < usedWords; w++){
+            long word = bits[rowStart + w];
+            while (word != 0){
+                int i = (w << 6) + Long.numberOfTrailingZeros(word);
+                int edges = hasExtraEdges[v] ? countEdges(v, i) : 1;
+                double[] copies = weights.get(edgeKey(v, i));
+                for (int k = 0; k < edges; k++){
+                    action.accept(i, copies == null ? 1.0 : copies[k]);
+                }
+                word &= word - 1;
             }
         }
-        return outNeighbors;
+    }
+
+    /**
+     * @return true once a weighted edge has been added.
+     */
+    @Override
+    public boolean isWeighted(){
+        return weights != null;
     }
 
     /**
@@ -114,15 +301,48 @@ public class AdjacencyMatrix extends Graph{
     public List<Integer> getInNeighbors(int v) {
         // Declare and initialize List to store and return in neighbors
         List<Integer> inNeighbors = new ArrayList<Integer>();
-        // Go to column v to find all in neighbors
-        for (int i = 0; i < adjMatrix.length; i++) {
-            int edges =  adjMatrix[i][v];
-            while (edges > 0){
-                inNeighbors.add(i);
-                edges--;
+        forEachInNeighbor(v, inNeighbors::add);
+        return inNeighbors;
+    }
+
+    /**
+     * Visit the in-neighbors of v. With the transposed matrix this walks
+     * the set bits of its row v, like forEachNeighbor. Without it, it tests
+     * bit v of every row, which reads one word from each of the V rows:
+     * O(V) per call, with a stride of a whole row between reads.
+     * @param v Index of vertex.
+     * @param action called with the index of each in-neighbor.
+     */
+    @Override
+    public void forEachInNeighbor(int v, IntConsumer action){
+        if (inBits != null){
+            int rowStart = v * wordsPerRow;
+            int usedWords = (getVertices() + 63) >>> 6;
+            for (int w = 0; w < usedWords; w++){
+                long word = inBits[rowStart + w];
+                while (word != 0){
+                    int i = (w << 6) + Long.numberOfTrailingZeros(word);
+                    int edges = hasExtraEdges[i] ? countEdges(i, v) : 1;
+                    while (edges > 0){
+                        action.accept(i);
+                        edges--;
+                    }
+                    word &= word - 1;
+                }
+            }
+            return;
+        }
+        int column = v >>> 6;
+        long mask = 1L << v;
+        for (int i = 0; i < getVertices(); i++){
+            if ((bits[i * wordsPerRow + column] & mask) != 0){
+                int edges = hasExtraEdges[i] ? countEdges(i, v) : 1;
+                while (edges > 0){
+                    action.accept(i);
+                    edges--;
+                }
             }
         }
-        return inNeighbors;
     }
 
     /**
@@ -134,16 +354,111 @@ public class AdjacencyMatrix extends Graph{
      */
     @Override
     public List<Integer> getDistance2(int v) {
-        List<Integer> oneHop = this.getNeighbors(v);
         List<Integer> twoHop = new ArrayList<Integer>();
-        List<Integer> neighbors;
-        for (Integer i: oneHop){
-            neighbors = this.getNeighbors(i);
-            twoHop.addAll(neighbors);
-        }
+        forEachNeighbor(v, i -> forEachNeighbor(i, twoHop::add));
         return twoHop;
     }
 
+    /**
+     * Vertices that are out-neighbors of both u and v,
+     * found by AND-ing the two rows a word at a time.
+     * @param u the index of the first vertex.
+     * @param v the index of the second vertex.
+     * @return sorted indices of the common out-neighbors, each once.
+     */
+    public int[] commonNeighbors(int u, int v){
+        long[] row = new long[(getVertices() + 63) >>> 6];
+        for (int w = 0; w < row.length; w++){
+            row[w] = bits[u * wordsPerRow + w] & bits[v * wordsPerRow + w];
+        }
+        return toVertices(row);
+    }
+
+    /**
+     * Vertices reachable by two hops from v,
+     * found by OR-ing the rows of v's out-neighbors a word at a time.
+     * @param v the index of vertex.
+     * @return sorted indices of the two hop vertices, each once.
+     */
+    public int[] twoHopUnion(int v){
+        long[] row = new long[(getVertices() + 63) >>> 6];
+        for (int w = 0; w < row.length; w++){
+            long word = bits[v * wordsPerRow + w];
+            while (word != 0){
+                int i = (w << 6) + Long.numberOfTrailingZeros(word);
+                for (int x = 0; x < row.length; x++){
+                    row[x] |= bits[i * wordsPerRow + x];
+                }
+                word &= word - 1;
+            }
+        }
+        return toVertices(row);
+    }
+
+    /**
+     * Distinct two-hop vertices, as the OR of the out-neighbors' rows.
+     * @param v the index of vertex.
+     * @return sorted indices of the two hop vertices, each once.
+     */
+    @Override
+    public int[] distinctDistance2(int v){
+        return twoHopUnion(v);
+    }
+
+    /**
+     * Distinct two-hop vertices of every vertex, one row OR per vertex in parallel.
+     * @return row v holds the sorted indices of the vertices two hops from v
+     */
+    @Override
+    public int[][] allDistance2(){
+        return IntStream.range(0, getVertices()).parallel()
+                .mapToObj(this::twoHopUnion)
+                .toArray(int[][]::new);
+    }
+
+    /**
+     * The matrix with edge directions dropped: bit v of row u is set when
+     * u -> v or v -> u is an edge. Self-loops are left out.
+     * @return (number of vertices) rows of (n + 63) / 64 longs each, one after another
+     */
+    long[] undirectedRows(){
+        int n = getVertices();
+        int words = (n + 63) >>> 6;
+        long[] rows = new long[n * words];
+        for (int u = 0; u < n; u++){
+            for (int w = 0; w < words; w++){
+                long word = bits[u * wordsPerRow + w];
+                rows[u * words + w] |= word;
+                // Mirror each edge into the row of its end point
+                while (word != 0){
+                    int v = (w << 6) + Long.numberOfTrailingZeros(word);
+                    rows[v * words + (u >>> 6)] |= 1L << u;
+                    word &= word - 1;
+                }
+            }
+            rows[u * words + (u >>> 6)] &= ~(1L << u);
+        }
+        return rows;
+    }
+
+    // Indices of the set bits of a row, in increasing order
+    private static int[] toVertices(long[] row){
+        int count = 0;
+        for (long word: row){
+            count += Long.bitCount(word);
+        }
+        int[] vertices = new int[count];
+        int k = 0;
+        for (int w = 0; w < row.length; w++){
+            long word = row[w];
+            while (word != 0){
+                vertices[k++] = (w << 6) + Long.numberOfTrailingZeros(word);
+                word &= word - 1;
+            }
+        }
+        return vertices;
+    }
+
     public static void main(String[] args) {
         Graph gh = new AdjacencyMatrix();
         System.out.println("Initial Vertices in the Graph " + gh.getVertices());
@@ -0,0 +1,207 @@
+package Graphs;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * A class that implements bidirectional BFS for point-to-point queries.
+ *
+ * One BFS runs forward from start over out-neighbors and another runs
+ * backward from goal over in-neighbors. Each round expands one whole level
+ * of whichever side has the smaller frontier, and the search stops at the
+ * end of the first level in which the two sides meet. On graphs with fan-out d
+ * and distance k this visits about 2*d^(k/2) vertices instead of d^k.
+ *
+ * Backward steps use forEachInNeighbor, so the Graph should answer in-neighbor
+ * queries quickly, e.g. an AdjacencyList with the incoming-edge index or a CsrGraph.
+ *
+ * Like TraversalWorkspace, the arrays are reused between queries by using epochs,
+ * and a search is not thread-safe: use one per thread.
+ */
+public class BidirectionalSearch {
+    // Arrays of the forward side
+    private int[] forwardEpoch, forwardParent, forwardDistance, forwardQueue;
+    // Arrays of the backward side: backwardParent[v] is the next vertex on v's way to goal
+    private int[] backwardEpoch, backwardParent, backwardDistance, backwardQueue;
+    private int epoch;
+
+    // State read by the neighbor visitors
+    private int currentVertex;
+    private int forwardTail, backwardTail;
+    // Best meeting vertex found in the current level, and the path length through it
+    private int meet;
+    private int bestLength;
+    private final IntConsumer forwardVisitor = this::discoverForward;
+    private final IntConsumer backwardVisitor = this::discoverBackward;
+
+    public BidirectionalSearch(){
+        this(16);
+    }
+
+    /**
+     * @param capacity number of vertices to size the arrays for.
+     */
+    public BidirectionalSearch(int capacity){
+        allocate(capacity);
+    }
+
+    private void allocate(int capacity){
+        forwardEpoch = new int[capacity];
+        forwardParent = new int[capacity];
+        forwardDistance = new int[capacity];
+        forwardQueue = new int[capacity];
+        backwardEpoch = new int[capacity];
+        backwardParent = new int[capacity];
+        backwardDistance = new int[capacity];
+        backwardQueue = new int[capacity];
+        epoch = 0;
+    }
+
+    private void reset(int n){
+        if (n > forwardEpoch.length){
+            allocate(Math.max(n, forwardEpoch.length * 2));
+        }
+        epoch++;
+        if (epoch == Integer.MAX_VALUE){
+            Arrays.fill(forwardEpoch, 0);
+            Arrays.fill(backwardEpoch, 0);
+            epoch = 1;
+        }
+        forwardTail = 0;
+        backwardTail = 0;
+        meet = -1;
+        bestLength = Integer.MAX_VALUE;
+    }
+
+    private void discoverForward(int v){
+        if (forwardEpoch[v] != epoch){
+            forwardEpoch[v] = epoch;
+            forwardParent[v] = currentVertex;
+            forwardDistance[v] = forwardDistance[currentVertex] + 1;
+            forwardQueue[forwardTail++] = v;
+            if (backwardEpoch[v] == epoch){
+                checkMeeting(v);
+            }
+        }
+    }
+
+    private void discoverBackward(int v){
+        if (backwardEpoch[v] != epoch){
+            backwardEpoch[v] = epoch;
+            backwardParent[v] = currentVertex;
+            backwardDistance[v] = backwardDistance[currentVertex] + 1;
+            backwardQueue[backwardTail++] = v;
+            if (forwardEpoch[v] == epoch){
+                checkMeeting(v);
+            }
+        }
+    }
+
+    private void checkMeeting(int v){
+        int length = forwardDistance[v] + backwardDistance[v];
+        if (length < bestLength){
+            bestLength = length;
+            meet = v;
+        }
+    }
+
+    /**
+     * Find a shortest path (by number of edges) from start to goal.
+     *
+     * @param graph the Graph to search
+     * @param start start vertex
+     * @param goal toFind vertex
+     * @return the vertices of a shortest path from start to goal, or null if there is none
+     */
+    public int[] shortestPath(Graph graph, int start, int goal){
+        return search(graph, start, goal) ? path() : null;
+    }
+
+    /**
+     * @param graph the Graph to search
+     * @param start start vertex
+     * @param goal toFind vertex
+     * @return true if there is a path from start to goal
+     */
+    public boolean reachable(Graph graph, int start, int goal){
+        return search(graph, start, goal);
+    }
+
+    private boolean search(Graph graph, int start, int goal){
+        int n = graph.getVertices();
+        if (start < 0 || start >= n || goal < 0 || goal >= n){
+            throw new IndexOutOfBoundsException();
+        }
+        reset(n);
+        forwardEpoch[start] = epoch;
+        forwardParent[start] = -1;
+        forwardDistance[start] = 0;
+        forwardQueue[forwardTail++] = start;
+        backwardEpoch[goal] = epoch;
+        backwardParent[goal] = -1;
+        backwardDistance[goal] = 0;
+        backwardQueue[backwardTail++] = goal;
+        if (start == goal){
+            meet = start;
+            return true;
+        }
+        // [head, levelEnd) of each queue is the level that will be expanded next
+        int forwardHead = 0, backwardHead = 0;
+        while (forwardHead < forwardTail && backwardHead < backwardTail){
+            if (forwardTail - forwardHead <= backwardTail - backwardHead){
+                int levelEnd = forwardTail;
+                while (forwardHead < levelEnd){
+                    currentVertex = forwardQueue[forwardHead++];
+                    graph.forEachNeighbor(currentVertex, forwardVisitor);
+                }
+            } else {
+                int levelEnd = backwardTail;
+                while (backwardHead < levelEnd){
+                    currentVertex = backwardQueue[backwardHead++];
+                    graph.forEachInNeighbor(currentVertex, backwardVisitor);
+                }
+            }
+            // Finishing the level first makes sure the shortest meeting is picked
+            if (meet != -1){
+                return true;
+            }
+        }
+        // One side ran out of vertices: there is no path to start vertex to end vertex
+        return false;
+    }
+
+    /**
+     * Join the forward path start..meet with the backward path meet..goal.
+     */
+    private int[] path(){
+        int[] path = new int[forwardDistance[meet] + backwardDistance[meet] + 1];
+        int i = forwardDistance[meet];
+        for (int v = meet; v != -1; v = forwardParent[v]){
+            path[i--] = v;
+        }
+        i = forwardDistance[meet];
+        for (int v = backwardParent[meet]; v != -1; v = backwardParent[v]){
+            path[++i] = v;
+        }
+        return path;
+    }
+
+    public static void main(String[] args) {
+        Graph gh = new AdjacencyList(true);
+        for (int i = 0; i < 13; i++){
+            gh.addVertex();
+        }
+        gh.addEdges(0, 1);
+        gh.addEdges(0, 2);
+        gh.addEdges(2, 3);
+        gh.addEdges(3, 4);
+        gh.addEdges(3, 5);
+        gh.addEdges(5, 10);
+        gh.addEdges(5, 9);
+        gh.addEdges(2, 5);
+
+        BidirectionalSearch search = new BidirectionalSearch(gh.getVertices());
+        System.out.println("Path should be 0 2 5 10: " + Arrays.toString(search.shortestPath(gh, 0, 10)));
+        System.out.println("Path should not be found: " + Arrays.toString(search.shortestPath(gh, 1, 3)));
+    }
+}
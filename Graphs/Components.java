@@ -0,0 +1,193 @@
+package Graphs;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.stream.IntStream;
+
+/**
+ * A class that finds the components of a Graph.
+ *
+ * - Strongly connected components: vertices that can all reach each other.
+ *   Found with Tarjan's algorithm, written with an explicit call stack
+ *   so long chains don't overflow the Java stack.
+ * - Weakly connected components: vertices connected when edge directions
+ *   are ignored. Found with a union-find over an int array, in parallel:
+ *   roots are linked and paths are halved with CAS, no locks.
+ *
+ * Both run on a CSR snapshot and return componentId[v] for every vertex v,
+ * with ids 0 .. (number of components - 1).
+ */
+public class Components {
+
+    /**
+     * Tarjan's strongly connected components algorithm.
+     * Components are numbered in the order they are completed, which is a
+     * reverse topological order: every edge between two components goes from
+     * a higher id to a lower (or equal) id.
+     *
+     * @param graph the Graph to analyse
+     * @return the strongly connected component of every vertex
+     */
+    public static int[] stronglyConnected(Graph graph){
+        CsrGraph csr = graph.toCsr();
+        int n = csr.getVertices();
+        int[] component = new int[n];
+        // Discovery order of each vertex, -1 while undiscovered
+        int[] index = new int[n];
+        // Smallest discovery index reachable from the vertex's DFS subtree
+        int[] low = new int[n];
+        // Next edge to explore for each vertex on the call stack
+        int[] nextEdge = new int[n];
+        boolean[] onStack = new boolean[n];
+        // Tarjan's stack of vertices whose component isn't finished yet
+        int[] stack = new int[n];
+        int top = 0;
+        // Replaces recursion: the DFS path from the root to the current vertex
+        int[] callStack = new int[n];
+        int depth = 0;
+        int counter = 0;
+        int components = 0;
+        Arrays.fill(index, -1);
+
+        for (int root = 0; root < n; root++){
+            if (index[root] != -1){
+                continue;
+            }
+            index[root] = low[root] = counter++;
+            nextEdge[root] = csr.offsets[root];
+            stack[top++] = root;
+            onStack[root] = true;
+            callStack[depth++] = root;
+            while (depth > 0){
+                int v = callStack[depth - 1];
+                if (nextEdge[v] < csr.offsets[v + 1]){
+                    int w = csr.targets[nextEdge[v]++];
+                    if (index[w] == -1){
+                        // "recursive call" on w
+                        index[w] = low[w] = counter++;
+                        nextEdge[w] = csr.offsets[w];
+                        stack[top++] = w;
+                        onStack[w] = true;
+                        callStack[depth++] = w;
+                    } else if (onStack[w]){
+                        low[v] = Math.min(low[v], index[w]);
+                    }
+                } else {
+                    // "return" from v
+                    depth--;
+                    if (depth > 0){
+                        int caller = callStack[depth - 1];
+                        low[caller] = Math.min(low[caller], low[v]);
+                    }
+                    if (low[v] == index[v]){
+                        // v is the root of a component: everything above it on the stack
+                        int w;
+                        do {
+                            w = stack[--top];
+                            onStack[w] = false;
+                            component[w] = components;
+                        } while (w != v);
+                        components++;
+                    }
+                }
+            }
+        }
+        return component;
+    }
+
+    /**
+     * Parallel weakly connected components with a lock-free union-find.
+     * Every edge unites the sets of its end points; a root is always linked
+     * under a smaller root, so concurrent links can't form a cycle.
+     *
+     * @param graph the Graph to analyse
+     * @return the weakly connected component of every vertex, numbered
+     * in the order of each component's smallest vertex
+     */
+    public static int[] weaklyConnected(Graph graph){
+        CsrGraph csr = graph.toCsr();
+        int n = csr.getVertices();
+        AtomicIntegerArray parent = new AtomicIntegerArray(n);
+        IntStream.range(0, n).parallel().forEach(v -> parent.set(v, v));
+        IntStream.range(0, n).parallel().forEach(u -> {
+            for (int i = csr.offsets[u]; i < csr.offsets[u + 1]; i++){
+                union(parent, u, csr.targets[i]);
+            }
+        });
+        int[] root = new int[n];
+        IntStream.range(0, n).parallel().forEach(v -> root[v] = find(parent, v));
+        // A root is the smallest vertex of its set, so it comes before the rest of it
+        int[] component = new int[n];
+        int components = 0;
+        for (int v = 0; v < n; v++){
+            component[v] = root[v] == v ? components++ : component[root[v]];
+        }
+        return component;
+    }
+
+    /**
+     * Find the root of v's set, halving the path on the way:
+     * each visited vertex is pointed at its grandparent.
+     */
+    private static int find(AtomicIntegerArray parent, int v){
+        while (true){
+            int p = parent.get(v);
+            if (p == v){
+                return v;
+            }
+            int grandparent = parent.get(p);
+            if (p != grandparent){
+                // Losing this CAS only means someone else shortened the path
+                parent.compareAndSet(v, p, grandparent);
+            }
+            v = grandparent;
+        }
+    }
+
+    private static void union(AtomicIntegerArray parent, int u, int v){
+        while (true){
+            int ru = find(parent, u);
+            int rv = find(parent, v);
+            if (ru == rv){
+                return;
+            }
+            // Link the larger root under the smaller one; retry if it stopped being a root
+            int high = Math.max(ru, rv), small = Math.min(ru, rv);
+            if (parent.compareAndSet(high, high, small)){
+                return;
+            }
+        }
+    }
+
+    /**
+     * @param componentId component of every vertex, numbered from 0
+     * @return the number of components
+     */
+    public static int count(int[] componentId){
+        int max = -1;
+        for (int id: componentId){
+            max = Math.max(max, id);
+        }
+        return max + 1;
+    }
+
+    public static void main(String[] args) {
+        Graph gh = new AdjacencyList();
+        for (int i = 0; i < 7; i++){
+            gh.addVertex();
+        }
+        // cycle 0 -> 1 -> 2 -> 0, cycle 3 <-> 4, 2 -> 3, and 5 -> 6 apart
+        gh.addEdges(0, 1);
+        gh.addEdges(1, 2);
+        gh.addEdges(2, 0);
+        gh.addEdges(3, 4);
+        gh.addEdges(4, 3);
+        gh.addEdges(2, 3);
+        gh.addEdges(5, 6);
+
+        int[] strong = stronglyConnected(gh);
+        System.out.println("Strong components should be 4: " + count(strong) + " " + Arrays.toString(strong));
+        int[] weak = weaklyConnected(gh);
+        System.out.println("Weak components should be 2: " + count(weak) + " " + Arrays.toString(weak));
+    }
+}
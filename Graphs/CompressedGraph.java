@@ -0,0 +1,341 @@
+package Graphs;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.IntConsumer;
+
+/**
+ * A class that implements a read-only directed graph with compressed neighbor lists.
+ *
+ * The graph may have self-loops, parallel edges.
+ * Vertices are labeled by integers 0 .. n-1
+ * and don't have String labels.
+ * The edges of the graph are not labeled.
+ *
+ * Representation of edges via gap encoding: each vertex's neighbors are
+ * sorted, and only the differences between consecutive neighbors are stored,
+ * as variable-length integers (7 bits per byte, high bit set when more bytes follow).
+ * Neighbors of real graphs are usually close together, so most gaps fit in one byte.
+ * The first neighbor is stored relative to the vertex itself, zigzag-encoded
+ * because it may be smaller. An offset index gives each vertex's first byte,
+ * and neighbors are decoded on the fly while they are visited. Out- and
+ * in-degrees are stored in one byte per vertex each, with a side table for
+ * the few vertices that have 255 or more, so degree queries are O(1).
+ * So the cost is the encoded bytes plus one int and two bytes per vertex.
+ *
+ * In-edges are optional and compressed the same way; they store every edge
+ * a second time. Without them, in-neighbor queries scan all out-lists.
+ */
+public class CompressedGraph extends Graph{
+    // out[outIndex[v] .. outIndex[v+1]-1] are the encoded out-neighbors of v
+    private final byte[] out;
+    private final int[] outIndex;
+    // Same for the in-neighbors; both null unless in-edges are kept
+    private final byte[] in;
+    private final int[] inIndex;
+    private final Degrees outDegrees;
+    private final Degrees inDegrees;
+
+    /**
+     * Degrees of all vertices in one byte each. A byte of 255 means the degree
+     * is 255 or more and is kept in a side table sorted by vertex, which stays
+     * small because few vertices have that many neighbors.
+     */
+    private static class Degrees {
+        private static final int LARGE = 255;
+        final byte[] small;
+        final int[] largeVertices;
+        final int[] largeDegrees;
+
+        Degrees(int[] offsets){
+            int n = offsets.length - 1;
+            small = new byte[n];
+            int large = 0;
+            for (int v = 0; v < n; v++){
+                if (offsets[v + 1] - offsets[v] >= LARGE){
+                    large++;
+                }
+            }
+            largeVertices = new int[large];
+            largeDegrees = new int[large];
+            large = 0;
+            for (int v = 0; v < n; v++){
+                int degree = offsets[v + 1] - offsets[v];
+                if (degree >= LARGE){
+                    small[v] = (byte) LARGE;
+                    largeVertices[large] = v;
+                    largeDegrees[large++] = degree;
+                } else {
+                    small[v] = (byte) degree;
+                }
+            }
+        }
+
+        int get(int v){
+            int degree = small[v] & 0xFF;
+            return degree < LARGE ? degree : largeDegrees[Arrays.binarySearch(largeVertices, v)];
+        }
+
+        long bytes(){
+            return small.length + 8L * largeVertices.length;
+        }
+    }
+
+    /**
+     * Compress the out-edges of any unweighted Graph.
+     * @param graph the Graph to copy.
+     */
+    public CompressedGraph(Graph graph){
+        this(graph, false);
+    }
+
+    /**
+     * Compress any unweighted Graph.
+     * @param graph the Graph to copy.
+     * @param withInEdges true to also keep compressed in-neighbor lists,
+     *                    which makes in-neighbor queries O(in-degree) but doubles the size.
+     */
+    public CompressedGraph(Graph graph, boolean withInEdges){
+        this(unweighted(graph).toCsr(), withInEdges);
+    }
+
+    // Weights have no place in the encoding; dropping them would change distances silently
+    private static Graph unweighted(Graph graph){
+        if (graph.isWeighted()){
+            throw new IllegalArgumentException("CompressedGraph doesn't store edge weights");
+        }
+        return graph;
+    }
+
+    private CompressedGraph(CsrGraph csr, boolean withInEdges){
+        super(csr.getVertices(), csr.getEdges());
+        int n = csr.getVertices();
+        outIndex = new int[n + 1];
+        out = encode(csr.offsets, csr.targets, outIndex);
+        outDegrees = new Degrees(csr.offsets);
+        inDegrees = new Degrees(csr.inOffsets);
+        if (withInEdges){
+            inIndex = new int[n + 1];
+            in = encode(csr.inOffsets, csr.sources, inIndex);
+        } else {
+            inIndex = null;
+            in = null;
+        }
+    }
+
+    private static byte[] encode(int[] offsets, int[] neighbors, int[] index){
+        int n = offsets.length - 1;
+        byte[] bytes = new byte[Math.max(16, neighbors.length + 5)];
+        int position = 0;
+        int[] sorted = new int[0];
+        for (int v = 0; v < n; v++){
+            index[v] = position;
+            int degree = offsets[v + 1] - offsets[v];
+            if (sorted.length < degree){
+                sorted = new int[degree];
+            }
+            System.arraycopy(neighbors, offsets[v], sorted, 0, degree);
+            Arrays.sort(sorted, 0, degree);
+            // at most 5 bytes per neighbor
+            if (position + 5L * degree > bytes.length){
+                bytes = Arrays.copyOf(bytes, (int) Math.min(Integer.MAX_VALUE - 8,
+                        Math.max(2L * bytes.length, position + 5L * degree)));
+            }
+            int previous = v;
+            for (int i = 0; i < degree; i++){
+                // zigzag for the first gap, which may be negative; later gaps are >= 0
+                int gap = i == 0 ? (sorted[i] - v) << 1 ^ (sorted[i] - v) >> 31 : sorted[i] - previous;
+                position = writeVarint(bytes, position, gap);
+                previous = sorted[i];
+            }
+        }
+        index[n] = position;
+        return Arrays.copyOf(bytes, position);
+    }
+
+    private static int writeVarint(byte[] bytes, int position, int value){
+        while ((value & ~0x7F) != 0){
+            bytes[position++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        bytes[position++] = (byte) value;
+        return position;
+    }
+
+    /**
+     * Decode the neighbors of v from the given arrays and pass them to action.
+     */
+    private static void decode(byte[] bytes, int[] index, int v, IntConsumer action){
+        int position = index[v];
+        int end = index[v + 1];
+        int previous = v;
+        boolean first = true;
+        while (position < end){
+            int value = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = bytes[position++];
+                value |= (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            if (first){
+                // undo zigzag
+                previous = v + ((value >>> 1) ^ -(value & 1));
+                first = false;
+            } else {
+                previous += value;
+            }
+            action.accept(previous);
+        }
+    }
+
+    /**
+     * @return true if compressed in-neighbor lists are kept.
+     */
+    public boolean hasInEdges(){
+        return in != null;
+    }
+
+    /**
+     * @return number of bytes used by the encoded neighbor lists, out and in.
+     */
+    public long encodedBytes(){
+        return (long) out.length + (in == null ? 0 : in.length);
+    }
+
+    /**
+     * @return number of bytes used by the whole structure: encoded lists, offset indexes and degrees.
+     */
+    public long totalBytes(){
+        return encodedBytes() + 4L * outIndex.length + (inIndex == null ? 0 : 4L * inIndex.length)
+                + outDegrees.bytes() + inDegrees.bytes();
+    }
+
+    /**
+     * A compressed Graph can't be changed.
+     */
+    @Override
+    public void implementAddVertex() {
+        throw new UnsupportedOperationException("CompressedGraph is read-only");
+    }
+
+    /**
+     * A compressed Graph can't be changed.
+     */
+    @Override
+    public void implementAddEdge(int vertex1, int vertex2) {
+        throw new UnsupportedOperationException("CompressedGraph is read-only");
+    }
+
+    /**
+     * Implement the abstract method for finding all
+     * out-neighbors of a vertex, in increasing order.
+     * @param v Index of vertex.
+     * @return List<Integer> a list of indices of vertices.
+     */
+    @Override
+    public List<Integer> getNeighbors(int v) {
+        List<Integer> neighbors = new ArrayList<Integer>(outDegree(v));
+        forEachNeighbor(v, neighbors::add);
+        return neighbors;
+    }
+
+    /**
+     * Visit the out-neighbors of v in increasing order, decoding them on the fly.
+     * @param v Index of vertex.
+     * @param action called with the index of each out-neighbor.
+     */
+    @Override
+    public void forEachNeighbor(int v, IntConsumer action){
+        decode(out, outIndex, v, action);
+    }
+
+    /**
+     * Implement the abstract method for finding all
+     * in-neighbors of a vertex, in increasing order.
+     * @param v Index of vertex.
+     * @return List<Integer> a list of indices of vertices.
+     */
+    @Override
+    public List<Integer> getInNeighbors(int v) {
+        List<Integer> inNeighbors = new ArrayList<Integer>(inDegree(v));
+        forEachInNeighbor(v, inNeighbors::add);
+        return inNeighbors;
+    }
+
+    /**
+     * Visit the in-neighbors of v in increasing order.
+     * Without in-edge lists this decodes every out-list: O(V+E).
+     * @param v Index of vertex.
+     * @param action called with the index of each in-neighbor.
+     */
+    @Override
+    public void forEachInNeighbor(int v, IntConsumer action){
+        if (in != null){
+            decode(in, inIndex, v, action);
+            return;
+        }
+        for (int u = 0; u < getVertices(); u++){
+            int from = u;
+            decode(out, outIndex, u, w -> {
+                if (w == v){
+                    action.accept(from);
+                }
+            });
+        }
+    }
+
+    /**
+     * @param v Index of vertex.
+     * @return the out-degree of v, in O(1).
+     */
+    @Override
+    public int outDegree(int v){
+        return outDegrees.get(v);
+    }
+
+    /**
+     * Stored even without in-edge lists, so this never scans the out-lists.
+     * @param v Index of vertex.
+     * @return the in-degree of v, in O(1).
+     */
+    @Override
+    public int inDegree(int v){
+        return inDegrees.get(v);
+    }
+
+    /**
+     * Implement the abstract method for finding all
+     * vertices reachable by two hops from v.
+     * @param v The starting vertex
+     * @return List<Integer> a list of indices of vertices.
+     */
+    @Override
+    public List<Integer> getDistance2(int v) {
+        List<Integer> twoHop = new ArrayList<Integer>();
+        forEachNeighbor(v, i -> forEachNeighbor(i, twoHop::add));
+        return twoHop;
+    }
+
+    public static void main(String[] args) {
+        int n = 100000;
+        Graph gh = new AdjacencyList();
+        gh.addVertices(n);
+        // Each vertex links to the 16 vertices around it, like a web crawl in URL order
+        for (int v = 0; v < n; v++){
+            for (int d = 1; d <= 8; d++){
+                gh.addEdges(v, (v + d) % n);
+                gh.addEdges(v, (v + n - d) % n);
+            }
+        }
+        CompressedGraph compressed = new CompressedGraph(gh);
+        System.out.println("Vertex 0's out neighbour should be Vertex 1 .. 8 and 99992 .. 99999: " + compressed.getNeighbors(0));
+        System.out.println("Vertex 0's in neighbour should be the same: " + compressed.getInNeighbors(0));
+        System.out.println("Vertex 0's in-degree should be 16: " + compressed.inDegree(0));
+        System.out.println("Bytes per edge, out-lists only: " + (double) compressed.totalBytes() / compressed.getEdges());
+        CompressedGraph both = new CompressedGraph(gh, true);
+        System.out.println("Bytes per edge, out- and in-lists: " + (double) both.totalBytes() / both.getEdges());
+    }
+}
@@ -0,0 +1,478 @@
+package Graphs;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntConsumer;
+
+/**
+ * A class that implements a directed graph that many threads can use at once.
+ *
+ * The graph may have self-loops, parallel edges.
+ * Vertices are labeled by integers 0 .. n-1
+ * and don't have String labels.
+ * The edges of the graph are not labeled, but may carry weights.
+ *
+ * Representation of edges via per-vertex neighbor arrays, out and in.
+ * - addVertex takes the next index from an atomic counter.
+ * - addEdges locks only the two vertices it appends to, one at a time,
+ *   so writers to different vertices never wait for each other.
+ * - Readers take no locks: a neighbor array is published together with its
+ *   size through a volatile field, and a full array is replaced by a bigger
+ *   copy rather than changed, so a reader always sees a consistent prefix.
+ */
+public class ConcurrentGraph extends Graph{
+    // Vertices are kept in chunks of 1 << CHUNK_BITS slots
+    private static final int CHUNK_BITS = 10;
+    private static final int CHUNK = 1 << CHUNK_BITS;
+    private static final Neighbors EMPTY = new Neighbors(new int[0], null, 0);
+
+    /**
+     * A published neighbor array: data[0 .. size-1] are the neighbors.
+     * Writing data[size] before the volatile size makes the new entry visible
+     * to any reader that sees the new size. Out-arrays that hold a weighted
+     * edge have weights[i], the weight of the edge to data[i], published the same way.
+     */
+    private static final class Neighbors {
+        final int[] data;
+        // null until a weighted edge is added; unweighted edges weigh 1
+        final double[] weights;
+        volatile int size;
+
+        Neighbors(int[] data, double[] weights, int size){
+            this.data = data;
+            this.weights = weights;
+            this.size = size;
+        }
+    }
+
+    /**
+     * Edges of one vertex. Writers lock the slot, readers don't.
+     */
+    private static final class Slot {
+        volatile Neighbors out = EMPTY;
+        volatile Neighbors in = EMPTY;
+    }
+
+    // directory[c][i] is the slot of vertex c * CHUNK + i; grown under the lock of this Graph
+    private volatile Slot[][] directory;
+    private final AtomicInteger vertexCount;
+    private final AtomicInteger edgeCount;
+    // Set once the first weighted edge is added
+    private volatile boolean weighted;
+
+    public ConcurrentGraph(){
+        directory = new Slot[0][];
+        vertexCount = new AtomicInteger();
+        edgeCount = new AtomicInteger();
+    }
+
+    /**
+     * Add new vertex to the Graph.
+     * Its index is taken atomically, so concurrent callers get distinct indices.
+     */
+    @Override
+    public int addVertex(){
+        int v = vertexCount.getAndIncrement();
+        ensureVertexCapacity(v + 1);
+        return v;
+    }
+
+    /**
+     * Add n new vertices with consecutive indices.
+     * @param n number of vertices to add.
+     * @return the index of the first new vertex.
+     */
+    @Override
+    public int addVertices(int n){
+        if (n < 0){
+            throw new IllegalArgumentException("Negative number of vertices: " + n);
+        }
+        int first = vertexCount.getAndAdd(n);
+        ensureVertexCapacity(first + n);
+        return first;
+    }
+
+    /**
+     * Add new edge to the graph between given vertices.
+     * Safe to call from many threads at once.
+     * @param vertex1 the index of the start point for the edge.
+     * @param vertex2 the index of the end point for the edge.
+     */
+    @Override
+    public void addEdges(int vertex1, int vertex2){
+        int n = vertexCount.get();
+        if (vertex1 < 0 || vertex1 >= n || vertex2 < 0 || vertex2 >= n){
+            throw new IndexOutOfBoundsException();
+        }
+        implementAddEdge(vertex1, vertex2);
+        edgeCount.incrementAndGet();
+    }
+
+    /**
+     * Add new weighted edge to the graph between given vertices.
+     * Safe to call from many threads at once.
+     * @param vertex1 the index of the start point for the edge.
+     * @param vertex2 the index of the end point for the edge.
+     * @param weight the weight (e.g. length) of the edge.
+     */
+    @Override
+    public void addEdges(int vertex1, int vertex2, double weight){
+        int n = vertexCount.get();
+        if (vertex1 < 0 || vertex1 >= n || vertex2 < 0 || vertex2 >= n){
+            throw new IndexOutOfBoundsException();
+        }
+        implementAddEdge(vertex1, vertex2, weight);
+        edgeCount.incrementAndGet();
+    }
+
+    /**
+     * Add many edges, each one as by addEdges(int, int).
+     * @param src start points of the edges.
+     * @param dst end points of the edges.
+     */
+    @Override
+    public void addEdges(int[] src, int[] dst){
+        if (src.length != dst.length){
+            throw new IllegalArgumentException("src and dst have different lengths");
+        }
+        for (int i = 0; i < src.length; i++){
+            addEdges(src[i], dst[i]);
+        }
+    }
+
+    /**
+     * Vertex slots are created a chunk at a time when addVertex needs them.
+     */
+    @Override
+    public void implementAddVertex() {
+    }
+
+    /**
+     * Append the edge to vertex1's out-array and to vertex2's in-array.
+     * The two locks are never held together, so there is no lock ordering to get wrong.
+     * @param vertex1 the index of the start point for the edge.
+     * @param vertex2 the index of the end point for the edge.
+     */
+    @Override
+    public void implementAddEdge(int vertex1, int vertex2) {
+        addEdge(vertex1, vertex2, 1.0, false);
+    }
+
+    /**
+     * Append the edge and its weight to vertex1's out-array, and the edge to
+     * vertex2's in-array. The first weighted edge out of a vertex gives its
+     * earlier edges weight 1.
+     * @param vertex1 the index of the start point for the edge.
+     * @param vertex2 the index of the end point for the edge.
+     * @param weight the weight of the edge.
+     */
+    @Override
+    public void implementAddEdge(int vertex1, int vertex2, double weight) {
+        weighted = true;
+        addEdge(vertex1, vertex2, weight, true);
+    }
+
+    private void addEdge(int vertex1, int vertex2, double weight, boolean withWeight){
+        Slot from = slot(vertex1);
+        synchronized (from){
+            from.out = append(from.out, vertex2, weight, withWeight);
+        }
+        Slot to = slot(vertex2);
+        synchronized (to){
+            to.in = append(to.in, vertex1, 1.0, false);
+        }
+    }
+
+    // Called with the slot's lock held; returns the array to publish
+    private static Neighbors append(Neighbors list, int value, double weight, boolean withWeight){
+        int size = list.size;
+        boolean addWeights = withWeight && list.weights == null;
+        if (size == list.data.length || addWeights){
+            // Readers of the old array keep a consistent view; new readers get the copy
+            int capacity = size == list.data.length ? Math.max(4, size * 2) : list.data.length;
+            double[] weights = null;
+            if (list.weights != null){
+                weights = Arrays.copyOf(list.weights, capacity);
+            } else if (addWeights){
+                weights = new double[capacity];
+                Arrays.fill(weights, 0, size, 1.0);
+            }
+            Neighbors grown = new Neighbors(Arrays.copyOf(list.data, capacity), weights, size);
+            grown.data[size] = value;
+            if (weights != null){
+                weights[size] = weight;
+            }
+            grown.size = size + 1;
+            return grown;
+        }
+        list.data[size] = value;
+        if (list.weights != null){
+            list.weights[size] = weight;
+        }
+        list.size = size + 1;
+        return list;
+    }
+
+    /**
+     * Create the chunks that hold vertices 0 .. capacity-1.
+     * @param capacity total number of vertices the Graph will have.
+     */
+    @Override
+    protected void ensureVertexCapacity(int capacity){
+        int chunks = (capacity + CHUNK - 1) >>> CHUNK_BITS;
+        if (chunks <= directory.length){
+            return;
+        }
+        synchronized (this){
+            Slot[][] current = directory;
+            if (chunks <= current.length){
+                return;
+            }
+            Slot[][] grown = Arrays.copyOf(current, Math.max(chunks, current.length * 2));
+            for (int c = current.length; c < grown.length; c++){
+                Slot[] chunk = new Slot[CHUNK];
+                for (int i = 0; i < CHUNK; i++){
+                    chunk[i] = new Slot();
+                }
+                grown[c] = chunk;
+            }
+            directory = grown;
+        }
+    }
+
+    // Slot of v for writing; another thread may have taken index v but not yet created its chunk
+    private Slot slot(int v){
+        ensureVertexCapacity(v + 1);
+        return directory[v >>> CHUNK_BITS][v & (CHUNK - 1)];
+    }
+
+    // Published out-array of v; a vertex whose chunk isn't published yet has no edges
+    private Neighbors out(int v){
+        Slot[][] dir = directory;
+        return (v >>> CHUNK_BITS) < dir.length ? dir[v >>> CHUNK_BITS][v & (CHUNK - 1)].out : EMPTY;
+    }
+
+    private Neighbors in(int v){
+        Slot[][] dir = directory;
+        return (v >>> CHUNK_BITS) < dir.length ? dir[v >>> CHUNK_BITS][v & (CHUNK - 1)].in : EMPTY;
+    }
+
+    /**
+     * Implement the abstract method for finding all
+     * out-neighbors of a vertex, as of one moment in time.
+     * @param v Index of vertex.
+     * @return List<Integer> a list of indices of vertices.
+     */
+    @Override
+    public List<Integer> getNeighbors(int v) {
+        return toList(out(v));
+    }
+
+    /**
+     * Implement the abstract method for visiting all
+     * out-neighbors of a vertex, as of one moment in time.
+     * @param v Index of vertex.
+     * @param action called with the index of each out-neighbor.
+     */
+    @Override
+    public void forEachNeighbor(int v, IntConsumer action){
+        forEach(out(v), action);
+    }
+
+    /**
+     * Implement the abstract method for finding all
+     * in-neighbors of a vertex, as of one moment in time.
+     * @param v Index of vertex.
+     * @return List<Integer> a list of indices of vertices.
+     */
+    @Override
+    public List<Integer> getInNeighbors(int v) {
+        return toList(in(v));
+    }
+
+    /**
+     * Implement the abstract method for visiting all
+     * in-neighbors of a vertex, as of one moment in time.
+     * @param v Index of vertex.
+     * @param action called with the index of each in-neighbor.
+     */
+    @Override
+    public void forEachInNeighbor(int v, IntConsumer action){
+        forEach(in(v), action);
+    }
+
+    /**
+     * Visit the out-neighbors of v with the weights of the edges to them,
+     * as of one moment in time.
+     * @param v Index of vertex.
+     * @param action called with each out-neighbor and edge weight.
+     */
+    @Override
+    public void forEachWeightedNeighbor(int v, EdgeConsumer action){
+        Neighbors list = out(v);
+        int size = list.size;
+        int[] data = list.data;
+        double[] weights = list.weights;
+        for (int i = 0; i < size; i++){
+            action.accept(data[i], weights == null ? 1.0 : weights[i]);
+        }
+    }
+
+    /**
+     * @return true once a weighted edge has been added.
+     */
+    @Override
+    public boolean isWeighted(){
+        return weighted;
+    }
+
+    private static List<Integer> toList(Neighbors list){
+        // Read size before data, and only once
+        int size = list.size;
+        List<Integer> neighbors = new ArrayList<Integer>(size);
+        for (int i = 0; i < size; i++){
+            neighbors.add(list.data[i]);
+        }
+        return neighbors;
+    }
+
+    private static void forEach(Neighbors list, IntConsumer action){
+        int size = list.size;
+        int[] data = list.data;
+        for (int i = 0; i < size; i++){
+            action.accept(data[i]);
+        }
+    }
+
+    /**
+     * Implement the abstract method for finding all
+     * vertices reachable by two hops from v.
+     * @param v The starting vertex
+     * @return List<Integer> a list of indices of vertices.
+     */
+    @Override
+    public List<Integer> getDistance2(int v) {
+        List<Integer> twoHop = new ArrayList<Integer>();
+        forEachNeighbor(v, i -> forEachNeighbor(i, twoHop::add));
+        return twoHop;
+    }
+
+    /**
+     * Implement the method for the out-degree of a vertex,
+     * read from its published out-array.
+     * @param v Index of vertex.
+     * @return the out-degree of v.
+     */
+    @Override
+    public int outDegree(int v){
+        return out(v).size;
+    }
+
+    /**
+     * Implement the method for the in-degree of a vertex,
+     * read from its published in-array.
+     * @param v Index of vertex.
+     * @return the in-degree of v.
+     */
+    @Override
+    public int inDegree(int v){
+        return in(v).size;
+    }
+
+    /**
+     * Implement the method for the number of edges,
+     * kept in an atomic counter.
+     * @return number of edges added so far.
+     */
+    @Override
+    public int getEdges() {
+        return edgeCount.get();
+    }
+
+    /**
+     * Implement the method for the number of vertices,
+     * kept in an atomic counter.
+     * @return number of vertices added so far.
+     */
+    @Override
+    public int getVertices() {
+        return vertexCount.get();
+    }
+
+    /**
+     * Freeze the Graph while other threads may still add to it.
+     * Each vertex's out-array is read once, so the snapshot is consistent
+     * per vertex even though edges keep arriving. The snapshot has the
+     * vertices counted when it started; edges to vertices added later are left out.
+     * @return an immutable CSR copy of this Graph
+     */
+    @Override
+    public CsrGraph toCsr(){
+        int n = getVertices();
+        int[][] data = new int[n][];
+        double[][] weights = new double[n][];
+        boolean anyWeights = false;
+        int[] sizes = new int[n];
+        int[] offsets = new int[n + 1];
+        for (int v = 0; v < n; v++){
+            Neighbors list = out(v);
+            int size = list.size;
+            data[v] = list.data;
+            weights[v] = list.weights;
+            anyWeights |= list.weights != null;
+            sizes[v] = size;
+            int kept = 0;
+            for (int i = 0; i < size; i++){
+                if (list.data[i] < n){
+                    kept++;
+                }
+            }
+            offsets[v + 1] = offsets[v] + kept;
+        }
+        int[] targets = new int[offsets[n]];
+        double[] targetWeights = anyWeights ? new double[offsets[n]] : null;
+        for (int v = 0; v < n; v++){
+            int k = offsets[v];
+            for (int i = 0; i < sizes[v]; i++){
+                if (data[v][i] < n){
+                    if (anyWeights){
+                        targetWeights[k] = weights[v] == null ? 1.0 : weights[v][i];
+                    }
+                    targets[k++] = data[v][i];
+                }
+            }
+        }
+        return new CsrGraph(offsets, targets, targetWeights);
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        ConcurrentGraph gh = new ConcurrentGraph();
+        gh.addVertices(1000);
+        // Four writers add a ring each while a reader scans vertex 0
+        Thread[] writers = new Thread[4];
+        for (int t = 0; t < writers.length; t++){
+            int offset = t + 1;
+            writers[t] = new Thread(() -> {
+                for (int v = 0; v < 1000; v++){
+                    gh.addEdges(v, (v + offset) % 1000);
+                }
+            });
+            writers[t].start();
+        }
+        Thread reader = new Thread(() -> {
+            for (int i = 0; i < 1000; i++){
+                gh.getNeighbors(0);
+            }
+        });
+        reader.start();
+        for (Thread writer: writers){
+            writer.join();
+        }
+        reader.join();
+        System.out.println("Edges should be 4000: " + gh.getEdges());
+        System.out.println("Vertex 0's out-degree should be 4: " + gh.outDegree(0));
+        System.out.println("Path should be found: " + gh.breadthFirstSearch(0, 999).containsKey(999));
+    }
+}
@@ -0,0 +1,346 @@
+package Graphs;
+
+import java.util.*;
+import java.util.function.IntConsumer;
+
+/**
+ * A class that implements an immutable directed graph.
+ *
+ * The graph may have self-loops, parallel edges.
+ * Vertices are labeled by integers 0 .. n-1
+ * and don't have String labels.
+ * The edges of the graph are not labeled.
+ *
+ * Representation of edges via compressed sparse rows (CSR):
+ * the out-neighbors of vertex v are targets[offsets[v] .. offsets[v+1]-1].
+ * Every edge costs a single int and neighbor scans read memory sequentially.
+ * Incoming edges are stored the same way in inOffsets/sources.
+ */
+public class CsrGraph extends Graph{
+    // offsets[v] is the index in targets of v's first out-neighbor
+    final int[] offsets;
+    // Out-neighbors of all vertices, grouped by start vertex
+    final int[] targets;
+    // inOffsets[v] is the index in sources of v's first in-neighbor
+    final int[] inOffsets;
+    // In-neighbors of all vertices, grouped by end vertex
+    final int[] sources;
+    // weights[i] is the weight of the edge to targets[i], or null if unweighted
+    final double[] weights;
+
+    /**
+     * Create a CSR snapshot of any Graph.
+     * @param graph the Graph to copy.
+     */
+    public CsrGraph(Graph graph){
+        this(outOffsets(graph), outTargets(graph), outWeights(graph));
+    }
+
+    /**
+     * Create a CSR Graph from already built out-edge arrays.
+     * The arrays are used as they are, not copied.
+     * @param offsets vertices+1 entries, offsets[0] = 0.
+     * @param targets end points of all edges grouped by start point.
+     */
+    CsrGraph(int[] offsets, int[] targets){
+        this(offsets, targets, null);
+    }
+
+    /**
+     * Create a weighted CSR Graph from already built out-edge arrays.
+     * @param offsets vertices+1 entries, offsets[0] = 0.
+     * @param targets end points of all edges grouped by start point.
+     * @param weights weights of the edges in targets, or null if unweighted.
+     */
+    CsrGraph(int[] offsets, int[] targets, double[] weights){
+        super(offsets.length - 1, offsets[offsets.length - 1]);
+        this.offsets = offsets;
+        this.targets = targets;
+        this.weights = weights;
+        int n = offsets.length - 1;
+        // Counting sort of the edges by their end point
+        this.inOffsets = new int[n + 1];
+        for (int i = 0; i < offsets[n]; i++){
+            inOffsets[targets[i] + 1]++;
+        }
+        for (int v = 0; v < n; v++){
+            inOffsets[v + 1] += inOffsets[v];
+        }
+        this.sources = new int[offsets[n]];
+        int[] next = Arrays.copyOf(inOffsets, n);
+        for (int u = 0; u < n; u++){
+            for (int i = offsets[u]; i < offsets[u + 1]; i++){
+                sources[next[targets[i]]++] = u;
+            }
+        }
+    }
+
+    private static int[] outOffsets(Graph graph){
+        int n = graph.getVertices();
+        int[] offsets = new int[n + 1];
+        for (int v = 0; v < n; v++){
+            offsets[v + 1] = offsets[v] + graph.outDegree(v);
+        }
+        return offsets;
+    }
+
+    private static int[] outTargets(Graph graph){
+        int[] targets = new int[graph.getEdges()];
+        int[] i = {0};
+        for (int v = 0; v < graph.getVertices(); v++){
+            graph.forEachNeighbor(v, w -> targets[i[0]++] = w);
+        }
+        return targets;
+    }
+
+    private static double[] outWeights(Graph graph){
+        if (!graph.isWeighted()){
+            return null;
+        }
+        double[] weights = new double[graph.getEdges()];
+        int[] i = {0};
+        for (int v = 0; v < graph.getVertices(); v++){
+            graph.forEachWeightedNeighbor(v, (w, weight) -> weights[i[0]++] = weight);
+        }
+        return weights;
+    }
+
+    /**
+     * A CSR Graph can't be changed once it's built.
+     */
+    @Override
+    public void implementAddVertex() {
+        throw new UnsupportedOperationException("CsrGraph is immutable");
+    }
+
+    /**
+     * A CSR Graph can't be changed once it's built.
+     */
+    @Override
+    public void implementAddEdge(int vertex1, int vertex2) {
+        throw new UnsupportedOperationException("CsrGraph is immutable");
+    }
+
+    /**
+     * Implement the abstract method for finding all
+     * out-neighbors of a vertex.
+     * @param v Index of vertex.
+     * @return List<Integer> a list of indices of vertices.
+     */
+    @Override
+    public List<Integer> getNeighbors(int v) {
+        return slice(targets, offsets[v], offsets[v + 1]);
+    }
+
+    /**
+     * Visit the out-neighbors of v straight from the targets array.
+     * @param v Index of vertex.
+     * @param action called with the index of each out-neighbor.
+     */
+    @Override
+    public void forEachNeighbor(int v, IntConsumer action){
+        for (int i = offsets[v]; i < offsets[v + 1]; i++){
+            action.accept(targets[i]);
+        }
+    }
+
+    /**
+     * Visit the out-neighbors of v with the weights of the edges to them.
+     * @param v Index of vertex.
+     * @param action called with each out-neighbor and edge weight.
+     */
+    @Override
+    public void forEachWeightedNeighbor(int v, EdgeConsumer action){
+        for (int i = offsets[v]; i < offsets[v + 1]; i++){
+            action.accept(targets[i], weights == null ? 1.0 : weights[i]);
+        }
+    }
+
+    @Override
+    public boolean isWeighted(){
+        return weights != null;
+    }
+
+    /**
+     * @param v Index of vertex.
+     * @return the out-degree of v, read from the offsets.
+     */
+    @Override
+    public int outDegree(int v){
+        return offsets[v + 1] - offsets[v];
+    }
+
+    /**
+     * @param v Index of vertex.
+     * @return the in-degree of v, read from the offsets.
+     */
+    @Override
+    public int inDegree(int v){
+        return inOffsets[v + 1] - inOffsets[v];
+    }
+
+    /**
+     * Implement the abstract method for finding all
+     * in-neighbors of a vertex.
+     * @param v Index of vertex.
+     * @return List<Integer> a list of indices of vertices.
+     */
+    @Override
+    public List<Integer> getInNeighbors(int v) {
+        return slice(sources, inOffsets[v], inOffsets[v + 1]);
+    }
+
+    /**
+     * Visit the in-neighbors of v straight from the sources array.
+     * @param v Index of vertex.
+     * @param action called with the index of each in-neighbor.
+     */
+    @Override
+    public void forEachInNeighbor(int v, IntConsumer action){
+        for (int i = inOffsets[v]; i < inOffsets[v + 1]; i++){
+            action.accept(sources[i]);
+        }
+    }
+
+    /**
+     * Implement the abstract method for finding all
+     * vertices reachable by two hops from v.
+     * @param v The starting vertex
+     * @return List<Integer> a list of indices of vertices.
+     */
+    @Override
+    public List<Integer> getDistance2(int v) {
+        List<Integer> twoHop = new ArrayList<Integer>();
+        for (int i = offsets[v]; i < offsets[v + 1]; i++){
+            int u = targets[i];
+            for (int j = offsets[u]; j < offsets[u + 1]; j++){
+                twoHop.add(targets[j]);
+            }
+        }
+        return twoHop;
+    }
+
+    private static List<Integer> slice(int[] array, int from, int to){
+        List<Integer> list = new ArrayList<Integer>(to - from);
+        for (int i = from; i < to; i++){
+            list.add(array[i]);
+        }
+        return list;
+    }
+
+    /**
+     * DFS over the flat arrays.
+     * Visited vertices and parents are kept in int arrays, the parent
+     * Map is only built once the goal is found.
+     *
+     * @param start start vertex
+     * @param goal toFind vertex
+     * @return path from start to goal
+     */
+    @Override
+    public Map depthFirstSearch(int start, int goal){
+        int n = getVertices();
+        int[] parent = new int[n];
+        Arrays.fill(parent, -1);
+        boolean[] visited = new boolean[n];
+        // Vertices in the order they were discovered
+        int[] discovered = new int[n];
+        int discoveredCount = 0;
+        int[] stack = new int[n];
+        int top = 0;
+        stack[top++] = start;
+        visited[start] = true;
+        while (top > 0){
+            int currentVertex = stack[--top];
+            if (currentVertex == goal){
+                return toParentMap(parent, discovered, discoveredCount);
+            }
+            for (int i = offsets[currentVertex]; i < offsets[currentVertex + 1]; i++){
+                int newlyDiscoveredVertex = targets[i];
+                if (!visited[newlyDiscoveredVertex]){
+                    stack[top++] = newlyDiscoveredVertex;
+                    visited[newlyDiscoveredVertex] = true;
+                    parent[newlyDiscoveredVertex] = currentVertex;
+                    discovered[discoveredCount++] = newlyDiscoveredVertex;
+                }
+            }
+        }
+        // There is no path to start vertex to end vertex
+        return null;
+    }
+
+    /**
+     * BFS over the flat arrays.
+     * The queue is an int array: every vertex enters it at most once,
+     * so it also records the order in which vertices were discovered.
+     *
+     * @param start start vertex
+     * @param goal toFind vertex
+     * @return path from start to goal
+     */
+    @Override
+    public Map breadthFirstSearch(int start, int goal){
+        int n = getVertices();
+        int[] parent = new int[n];
+        Arrays.fill(parent, -1);
+        boolean[] visited = new boolean[n];
+        int[] queue = new int[n];
+        int head = 0, tail = 0;
+        queue[tail++] = start;
+        visited[start] = true;
+        while (head < tail){
+            int currentVertex = queue[head++];
+            if (currentVertex == goal){
+                // queue[0] is the start vertex, which has no parent
+                return toParentMap(parent, queue, tail);
+            }
+            for (int i = offsets[currentVertex]; i < offsets[currentVertex + 1]; i++){
+                int newlyDiscoveredVertex = targets[i];
+                if (!visited[newlyDiscoveredVertex]){
+                    queue[tail++] = newlyDiscoveredVertex;
+                    visited[newlyDiscoveredVertex] = true;
+                    parent[newlyDiscoveredVertex] = currentVertex;
+                }
+            }
+        }
+        // There is no path to start vertex to end vertex
+        return null;
+    }
+
+    private static Map<Integer, Integer> toParentMap(int[] parent, int[] vertices, int count){
+        Map<Integer, Integer> map = new HashMap<Integer, Integer>();
+        for (int i = 0; i < count; i++){
+            if (parent[vertices[i]] != -1){
+                map.put(vertices[i], parent[vertices[i]]);
+            }
+        }
+        return map;
+    }
+
+    /**
+     * The snapshot is already in CSR form.
+     * @return this Graph
+     */
+    @Override
+    public CsrGraph toCsr(){
+        return this;
+    }
+
+    public static void main(String[] args) {
+        Graph gh = new AdjacencyList();
+        for (int i = 0; i < 6; i++){
+            gh.addVertex();
+        }
+        gh.addEdges(0, 1);
+        gh.addEdges(0, 2);
+        gh.addEdges(2, 3);
+        gh.addEdges(3, 4);
+        gh.addEdges(3, 5);
+
+        CsrGraph csr = gh.toCsr();
+        System.out.println("Vertex 0's out neighbour should be Vertex 1 and Vertex 2: " + csr.getNeighbors(0));
+        System.out.println("Vertex 3's in neighbour should be Vertex 2: " + csr.getInNeighbors(3));
+        System.out.println("Path should be found: " + csr.depthFirstSearch(0, 5));
+        System.out.println("Path should not be found: " + csr.breadthFirstSearch(1, 3));
+    }
+}
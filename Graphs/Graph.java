@@ -2,6 +2,9 @@ package Graphs;
 
 
 import java.util.*;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
 
 /**
  * An abstract class that implements a directed graph.
@@ -9,15 +12,22 @@ import java.util.*;
  * The graph may have self-loops, parallel edges.
  * Vertices are labeled by integers 0 .. n-1
  * and don't have String labels.
- * The edges of the graph are not labeled.
+ * The edges of the graph are not labeled, but may carry weights.
  *
  * Representation of edges is left abstract.
+ * AdjacencyList, AdjacencyMatrix and ConcurrentGraph store the weights given
+ * to addEdges(u, v, weight); CsrGraph and the files of GraphFile keep the
+ * weights of the Graph they copy. CompressedGraph stores no weights and
+ * refuses weighted Graphs. isWeighted() tells whether a Graph has any.
  */
 public abstract class Graph {
     // Number of vertices
     private int vertices;
     // Number of edges
     private int edges;
+    // In-degree and out-degree of each vertex, kept up to date by addVertex and addEdges
+    private int[] inDegrees;
+    private int[] outDegrees;
 
     /**
      * Create a new empty Graph
@@ -25,6 +35,22 @@ public abstract class Graph {
     public Graph(){
         this.vertices = 0;
         this.edges = 0;
+        this.inDegrees = new int[5];
+        this.outDegrees = new int[5];
+    }
+
+    /**
+     * Create a Graph whose vertices and edges are already
+     * stored by the subclass (e.g. an immutable snapshot).
+     * Such a subclass must override inDegree and outDegree.
+     * @param vertices number of vertices in the stored Graph.
+     * @param edges number of edges in the stored Graph.
+     */
+    protected Graph(int vertices, int edges){
+        this.vertices = vertices;
+        this.edges = edges;
+        this.inDegrees = new int[0];
+        this.outDegrees = new int[0];
     }
 
     /**
@@ -33,10 +59,21 @@ public abstract class Graph {
      */
     public int addVertex(){
         implementAddVertex();
+        if (this.vertices == inDegrees.length){
+            inDegrees = Arrays.copyOf(inDegrees, Math.max(5, this.vertices * 2));
+            outDegrees = Arrays.copyOf(outDegrees, Math.max(5, this.vertices * 2));
+        }
         this.vertices++;
         return (this.vertices-1);
     }
 
+    /**
+     * Receives an edge's end point together with its weight.
+     */
+    public interface EdgeConsumer {
+        void accept(int vertex, double weight);
+    }
+
     /**
      * Add new edge to the graph between given vertices,
      * @param vertex1 the index of the start point for the edge.
@@ -46,12 +83,137 @@ public abstract class Graph {
         // Check if given two vertices are in the Graph by checking its number
         if(vertex1 < getVertices() && vertex2 < getVertices()){
             implementAddEdge(vertex1, vertex2);
+            outDegrees[vertex1]++;
+            inDegrees[vertex2]++;
+            this.edges++;
+        }
+        else {
+            throw new IndexOutOfBoundsException();
+        }
+
+    }
+
+    /**
+     * Add new weighted edge to the graph between given vertices.
+     * @param vertex1 the index of the start point for the edge.
+     * @param vertex2 the index of the end point for the edge.
+     * @param weight the weight (e.g. length) of the edge.
+     */
+    public void addEdges(int vertex1, int vertex2, double weight){
+        if(vertex1 < getVertices() && vertex2 < getVertices()){
+            implementAddEdge(vertex1, vertex2, weight);
+            outDegrees[vertex1]++;
+            inDegrees[vertex2]++;
             this.edges++;
         }
         else {
             throw new IndexOutOfBoundsException();
         }
+    }
+
+    /**
+     * Add n new vertices to the Graph in one go.
+     * The storage is sized for all of them before they are added.
+     * @param n number of vertices to add.
+     * @return the index of the first new vertex; the others follow it.
+     */
+    public int addVertices(int n){
+        if (n < 0){
+            throw new IllegalArgumentException("Negative number of vertices: " + n);
+        }
+        int first = getVertices();
+        ensureVertexCapacity(first + n);
+        if (first + n > inDegrees.length){
+            inDegrees = Arrays.copyOf(inDegrees, first + n);
+            outDegrees = Arrays.copyOf(outDegrees, first + n);
+        }
+        for (int i = 0; i < n; i++){
+            addVertex();
+        }
+        return first;
+    }
+
+    /**
+     * Add many edges in one go: edge i goes from src[i] to dst[i].
+     * The edges are checked and counted per vertex in parallel, then
+     * handed to implementAddEdges, which subclasses can override to
+     * place them straight into their final storage.
+     * @param src start points of the edges.
+     * @param dst end points of the edges.
+     */
+    public void addEdges(int[] src, int[] dst){
+        if (src.length != dst.length){
+            throw new IllegalArgumentException("src and dst have different lengths");
+        }
+        if ((long) this.edges + src.length > Integer.MAX_VALUE){
+            throw new IllegalStateException("Too many edges");
+        }
+        int n = getVertices();
+        if (IntStream.range(0, src.length).parallel()
+                .anyMatch(i -> src[i] < 0 || src[i] >= n || dst[i] < 0 || dst[i] >= n)){
+            throw new IndexOutOfBoundsException();
+        }
+        // Counting pass: how many new edges start and end at each vertex
+        AtomicIntegerArray outCounts = new AtomicIntegerArray(n);
+        AtomicIntegerArray inCounts = new AtomicIntegerArray(n);
+        IntStream.range(0, src.length).parallel().forEach(i -> {
+            outCounts.incrementAndGet(src[i]);
+            inCounts.incrementAndGet(dst[i]);
+        });
+        int[] newOut = new int[n];
+        int[] newIn = new int[n];
+        IntStream.range(0, n).parallel().forEach(v -> {
+            newOut[v] = outCounts.get(v);
+            newIn[v] = inCounts.get(v);
+        });
+        implementAddEdges(src, dst, newOut, newIn);
+        IntStream.range(0, n).parallel().forEach(v -> {
+            outDegrees[v] += newOut[v];
+            inDegrees[v] += newIn[v];
+        });
+        this.edges += src.length;
+    }
+
+    /**
+     * Add many edges given as a stream of vertex pairs:
+     * start point, end point, start point, end point, ...
+     * @param pairs the end points of the edges, two ints per edge.
+     */
+    public void addEdges(IntStream pairs){
+        int[] flat = pairs.toArray();
+        if (flat.length % 2 != 0){
+            throw new IllegalArgumentException("Odd number of vertices in edge stream");
+        }
+        int[] src = new int[flat.length / 2];
+        int[] dst = new int[flat.length / 2];
+        IntStream.range(0, src.length).parallel().forEach(i -> {
+            src[i] = flat[2 * i];
+            dst[i] = flat[2 * i + 1];
+        });
+        addEdges(src, dst);
+    }
 
+    /**
+     * Make room for the given number of vertices before they are added.
+     * Subclasses with resizable storage override this to grow once
+     * instead of many times; by default it does nothing.
+     * @param capacity total number of vertices the Graph will have.
+     */
+    protected void ensureVertexCapacity(int capacity){
+    }
+
+    /**
+     * Add already checked edges to the storage, edge i going from src[i] to dst[i].
+     * By default each edge goes through implementAddEdge.
+     * @param src start points of the edges.
+     * @param dst end points of the edges.
+     * @param outCounts number of the new edges that start at each vertex.
+     * @param inCounts number of the new edges that end at each vertex.
+     */
+    protected void implementAddEdges(int[] src, int[] dst, int[] outCounts, int[] inCounts){
+        for (int i = 0; i < src.length; i++){
+            implementAddEdge(src[i], dst[i]);
+        }
     }
 
     /**
@@ -65,6 +227,15 @@ public abstract class Graph {
      */
     public abstract void implementAddEdge(int vertex1, int vertex2);
 
+    /**
+     * Method to add a weighted edge to the Graph.
+     * Every changeable representation overrides this;
+     * read-only ones throw UnsupportedOperationException.
+     */
+    public void implementAddEdge(int vertex1, int vertex2, double weight){
+        throw new UnsupportedOperationException(getClass().getSimpleName() + " doesn't store edge weights");
+    }
+
     /**
      * Get all (out-)neighbors of a given vertex.
      * @param v Index of vertex.
@@ -73,6 +244,37 @@ public abstract class Graph {
      */
     public abstract List<Integer> getNeighbors(int v);
 
+    /**
+     * Visit every (out-)neighbor of a given vertex without boxing.
+     * A neighbor is visited once for each edge from v to it.
+     * Subclasses that store primitive neighbors should override this
+     * instead of building a List.
+     * @param v Index of vertex.
+     * @param action called with the index of each out-neighbor.
+     */
+    public void forEachNeighbor(int v, IntConsumer action){
+        for (int w: getNeighbors(v)){
+            action.accept(w);
+        }
+    }
+
+    /**
+     * Visit every (out-)neighbor of a given vertex together with the
+     * weight of the edge to it. Unweighted edges weigh 1.
+     * @param v Index of vertex.
+     * @param action called with each out-neighbor and edge weight.
+     */
+    public void forEachWeightedNeighbor(int v, EdgeConsumer action){
+        forEachNeighbor(v, w -> action.accept(w, 1.0));
+    }
+
+    /**
+     * @return true if the edges of this Graph carry their own weights.
+     */
+    public boolean isWeighted(){
+        return false;
+    }
+
     /**
      * Get all in-neighbors of a given vertex.
      * @param v Index of vertex.
@@ -81,32 +283,61 @@ public abstract class Graph {
      */
     public abstract List<Integer> getInNeighbors(int v);
 
+    /**
+     * Visit every in-neighbor of a given vertex without boxing.
+     * A neighbor is visited once for each edge from it to v.
+     * @param v Index of vertex.
+     * @param action called with the index of each in-neighbor.
+     */
+    public void forEachInNeighbor(int v, IntConsumer action){
+        for (int u: getInNeighbors(v)){
+            action.accept(u);
+        }
+    }
+
+    /**
+     * Number of edges that start at a vertex, parallel edges counted separately.
+     * @param v Index of vertex.
+     * @return the out-degree of v.
+     */
+    public int outDegree(int v){
+        return outDegrees[v];
+    }
+
+    /**
+     * Number of edges that end at a vertex, parallel edges counted separately.
+     * @param v Index of vertex.
+     * @return the in-degree of v.
+     */
+    public int inDegree(int v){
+        return inDegrees[v];
+    }
+
     /**
      * The degree sequence of a graph is a sorted (organized in numerical order
      * from largest to smallest, possibly with repetitions) list of the degrees
      * of the vertices in the graph.
      *
+     * Degrees come from the maintained counters and are sorted with
+     * counting sort, so this takes O(V + maximum degree).
+     *
      * @return The degree sequence of this graph.
      */
     public List<Integer> degreeSequence() {
-        List<Integer> degreeSeq = new ArrayList<Integer>();
-        int inDegree, outDegree, degree;
+        int maxDegree = 0;
+        for(int i=0; i<getVertices(); i++) {
+            maxDegree = Math.max(maxDegree, inDegree(i) + outDegree(i));
+        }
+        // count how many vertices have each degree
+        int[] count = new int[maxDegree + 1];
         for(int i=0; i<getVertices(); i++) {
-            inDegree = this.getInNeighbors(i).size();
-            outDegree = this.getNeighbors(i).size();
-            degree = inDegree + outDegree;
-            degreeSeq.add(degree);
-        }
-        // sort the list in non-increasing order using insertion sort
-        for(int pos = 1; pos < degreeSeq.size(); pos++) {
-            int current = pos;
-            while(current > 0 && degreeSeq.get(current) > degreeSeq.get(current-1)) {
-                // swap
-                int temp = degreeSeq.get(current);
-                degreeSeq.set(current, degreeSeq.get(current-1));
-                degreeSeq.set(current-1, temp);
-                // set current into current-1
-                current = current-1;
+            count[inDegree(i) + outDegree(i)]++;
+        }
+        // list the degrees from largest to smallest
+        List<Integer> degreeSeq = new ArrayList<Integer>(getVertices());
+        for(int degree = maxDegree; degree >= 0; degree--) {
+            for(int k = 0; k < count[degree]; k++) {
+                degreeSeq.add(degree);
             }
         }
         return degreeSeq;
@@ -121,6 +352,57 @@ public abstract class Graph {
      */
     public abstract List<Integer> getDistance2(int v);
 
+    /**
+     * Get the distinct vertices that are 2 away from the vertex.
+     * Unlike getDistance2, each vertex appears once however many
+     * two-hop paths lead to it.
+     *
+     * @param v The starting vertex
+     * @return sorted indices of the vertices that can be reached in exactly
+     * two hops from vertex v.
+     */
+    public int[] distinctDistance2(int v){
+        BitSet twoHop = new BitSet(getVertices());
+        forEachNeighbor(v, i -> forEachNeighbor(i, twoHop::set));
+        return twoHop.stream().toArray();
+    }
+
+    /**
+     * Distinct two-hop vertices of every vertex, computed in parallel.
+     * This is the sparsity pattern of the boolean matrix product A*A:
+     * row v is built by merging the rows of v's out-neighbors into a
+     * per-thread marker array (Gustavson's algorithm) over a CSR snapshot.
+     *
+     * @return row v holds the sorted indices of the vertices two hops from v
+     */
+    public int[][] allDistance2(){
+        CsrGraph csr = toCsr();
+        int n = csr.getVertices();
+        // marker[w] == v + 1 means w is already in the row of v
+        ThreadLocal<int[]> markers = ThreadLocal.withInitial(() -> new int[n]);
+        return IntStream.range(0, n).parallel().mapToObj(v -> {
+            int[] marker = markers.get();
+            int[] row = new int[8];
+            int size = 0;
+            for (int i = csr.offsets[v]; i < csr.offsets[v + 1]; i++){
+                int u = csr.targets[i];
+                for (int j = csr.offsets[u]; j < csr.offsets[u + 1]; j++){
+                    int w = csr.targets[j];
+                    if (marker[w] != v + 1){
+                        marker[w] = v + 1;
+                        if (size == row.length){
+                            row = Arrays.copyOf(row, size * 2);
+                        }
+                        row[size++] = w;
+                    }
+                }
+            }
+            row = Arrays.copyOf(row, size);
+            Arrays.sort(row);
+            return row;
+        }).toArray(int[][]::new);
+    }
+
     /**
      * Method that implements DFS Algorithm.
      * DFS searches all the way deep along a single path until it gets stuck or
@@ -201,6 +483,28 @@ public abstract class Graph {
         return null;
     }
 
+    /**
+     * Hop distances from many sources at once.
+     * The sources are searched in batches of 64 that share every
+     * read of the adjacency, see MultiSourceBreadthFirstSearch.
+     *
+     * @param sources the start vertices
+     * @return distances[i][v] is the hop distance from sources[i] to v, -1 if unreachable
+     */
+    public int[][] multiSourceBfs(int[] sources){
+        return MultiSourceBreadthFirstSearch.distances(this, sources);
+    }
+
+    /**
+     * Freeze the Graph into a compressed sparse row (CSR) snapshot.
+     * Later changes to this Graph are not reflected in the snapshot.
+     *
+     * @return an immutable CSR copy of this Graph
+     */
+    public CsrGraph toCsr(){
+        return new CsrGraph(this);
+    }
+
     /***
      * Getter methods
      */
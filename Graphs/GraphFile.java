@@ -0,0 +1,191 @@
+package Graphs;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A class that saves a Graph to a compact binary file and maps it back.
+ *
+ * The file is the CSR form of the Graph, as big-endian ints:
+ *   header:    MAGIC, VERSION or WEIGHTED_VERSION, number of vertices n, number of edges m
+ *   offsets:   n+1 ints, the out-neighbors of v are targets[offsets[v] .. offsets[v+1]-1]
+ *   targets:   m ints
+ *   inOffsets: n+1 ints, the in-neighbors of v are sources[inOffsets[v] .. inOffsets[v+1]-1]
+ *   sources:   m ints
+ *   weights:   m doubles, the weight of the edge to targets[i]; only in WEIGHTED_VERSION files
+ *
+ * Loading maps the file with FileChannel.map instead of reading it,
+ * so a Graph is ready as soon as the header is checked and JVMs on
+ * the same host share the operating system's page-cache copy.
+ */
+public class GraphFile {
+    // "CSRG"
+    static final int MAGIC = 0x43535247;
+    static final int VERSION = 1;
+    // Same layout followed by the weights section
+    static final int WEIGHTED_VERSION = 2;
+    // Bytes in the header
+    static final int HEADER = 16;
+
+    /**
+     * Write any Graph to a file. The edge weights of a weighted Graph are saved too.
+     * @param graph the Graph to save
+     * @param path the file to create or overwrite
+     * @throws IOException if the file can't be written
+     * @throws IllegalArgumentException if a section would be too large for map():
+     *         more than Integer.MAX_VALUE / 4 vertices + 1 or edges,
+     *         or more than Integer.MAX_VALUE / 8 edges when weighted
+     */
+    public static void write(Graph graph, Path path) throws IOException {
+        CsrGraph csr = graph.toCsr();
+        if (!mappable(csr.getVertices(), csr.getEdges(), csr.weights != null)){
+            throw new IllegalArgumentException("Graph too large to map back: " + csr.getVertices()
+                    + " vertices, " + csr.getEdges() + " edges");
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 16);
+            buffer.putInt(MAGIC).putInt(csr.weights == null ? VERSION : WEIGHTED_VERSION)
+                    .putInt(csr.getVertices()).putInt(csr.getEdges());
+            writeInts(channel, buffer, csr.offsets);
+            writeInts(channel, buffer, csr.targets);
+            writeInts(channel, buffer, csr.inOffsets);
+            writeInts(channel, buffer, csr.sources);
+            if (csr.weights != null){
+                writeDoubles(channel, buffer, csr.weights);
+            }
+            drain(channel, buffer);
+        }
+    }
+
+    /**
+     * Each section is mapped on its own, and one mapping can't reach 2GB,
+     * so every section must stay below Integer.MAX_VALUE bytes.
+     */
+    private static boolean mappable(int vertices, int edges, boolean weighted){
+        return vertices < Integer.MAX_VALUE / 4 && edges <= Integer.MAX_VALUE / 4
+                && (!weighted || edges <= Integer.MAX_VALUE / 8);
+    }
+
+    // Copy the ints through the buffer, writing it out whenever it fills up
+    private static void writeInts(FileChannel channel, ByteBuffer buffer, int[] values) throws IOException {
+        int i = 0;
+        while (i < values.length){
+            int count = Math.min(buffer.remaining() / 4, values.length - i);
+            buffer.asIntBuffer().put(values, i, count);
+            buffer.position(buffer.position() + 4 * count);
+            i += count;
+            if (buffer.remaining() < 4){
+                drain(channel, buffer);
+            }
+        }
+    }
+
+    private static void writeDoubles(FileChannel channel, ByteBuffer buffer, double[] values) throws IOException {
+        int i = 0;
+        while (i < values.length){
+            int count = Math.min(buffer.remaining() / 8, values.length - i);
+            buffer.asDoubleBuffer().put(values, i, count);
+            buffer.position(buffer.position() + 8 * count);
+            i += count;
+            if (buffer.remaining() < 8){
+                drain(channel, buffer);
+            }
+        }
+    }
+
+    private static void drain(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()){
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Map a file written by write() as a read-only Graph.
+     * @param path the file to map
+     * @return a Graph whose neighbor queries read the mapped file
+     * @throws IOException if the file can't be read or isn't a Graph file
+     */
+    public static MappedGraph map(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER){
+                throw new IOException("Not a graph file: " + path);
+            }
+            ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER);
+            if (header.getInt() != MAGIC){
+                throw new IOException("Not a graph file: " + path);
+            }
+            int version = header.getInt();
+            if (version != VERSION && version != WEIGHTED_VERSION){
+                throw new IOException("Not a graph file: " + path);
+            }
+            boolean weighted = version == WEIGHTED_VERSION;
+            int vertices = header.getInt();
+            int edges = header.getInt();
+            // write() never produces sections too large to map
+            if (vertices < 0 || edges < 0 || !mappable(vertices, edges, weighted)){
+                throw new IOException("Corrupt graph file header: " + vertices + " vertices, " + edges + " edges: " + path);
+            }
+            long expected = HEADER + 4L * (2L * (vertices + 1) + 2L * edges) + (weighted ? 8L * edges : 0);
+            if (channel.size() != expected){
+                throw new IOException("Truncated graph file: " + path);
+            }
+            // Each section is mapped on its own, so the 2GB limit applies per section, see mappable()
+            long position = HEADER;
+            IntBuffer offsets = mapInts(channel, position, vertices + 1);
+            position += 4L * (vertices + 1);
+            IntBuffer targets = mapInts(channel, position, edges);
+            position += 4L * edges;
+            IntBuffer inOffsets = mapInts(channel, position, vertices + 1);
+            position += 4L * (vertices + 1);
+            IntBuffer sources = mapInts(channel, position, edges);
+            position += 4L * edges;
+            DoubleBuffer weights = weighted
+                    ? channel.map(FileChannel.MapMode.READ_ONLY, position, 8L * edges).asDoubleBuffer() : null;
+            // The mapping stays valid after the channel is closed
+            return new MappedGraph(vertices, edges, offsets, targets, inOffsets, sources, weights);
+        }
+    }
+
+    private static IntBuffer mapInts(FileChannel channel, long position, int count) throws IOException {
+        return channel.map(FileChannel.MapMode.READ_ONLY, position, 4L * count).asIntBuffer();
+    }
+
+    public static void main(String[] args) throws IOException {
+        Graph gh = new AdjacencyList();
+        for (int i = 0; i < 6; i++){
+            gh.addVertex();
+        }
+        gh.addEdges(0, 1);
+        gh.addEdges(0, 2);
+        gh.addEdges(2, 3);
+        gh.addEdges(3, 4);
+        gh.addEdges(3, 5);
+
+        Path path = Files.createTempFile("graph", ".csr");
+        write(gh, path);
+        Graph mapped = map(path);
+        System.out.println("Vertex 0's out neighbour should be Vertex 1 and Vertex 2: " + mapped.getNeighbors(0));
+        System.out.println("Vertex 3's in neighbour should be Vertex 2: " + mapped.getInNeighbors(3));
+        System.out.println("Path should be found: " + mapped.breadthFirstSearch(0, 5));
+        Files.delete(path);
+
+        Graph roads = new AdjacencyList();
+        roads.addVertices(3);
+        roads.addEdges(0, 1, 2.5);
+        roads.addEdges(1, 2, 4.0);
+        write(roads, path);
+        Graph mappedRoads = map(path);
+        mappedRoads.forEachWeightedNeighbor(1, (w, weight) ->
+                System.out.println("Edge 1 -> 2 should weigh 4.0: " + w + " weighs " + weight));
+        Files.delete(path);
+    }
+}
@@ -0,0 +1,345 @@
+package Graphs;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * A class that answers many reachability queries on a Graph concurrently.
+ *
+ * - Each query runs as its own task, on a virtual thread when the JVM has them
+ *   (Java 21 and later) and on a pool of one thread per core otherwise.
+ * - Searches use TraversalWorkspaces taken from a shared pool, so a query
+ *   allocates no per-search HashSet or HashMap.
+ * - Every query has a budget: it gives up after visiting maxVisited vertices
+ *   or after timeout nanoseconds, and answers UNKNOWN.
+ * - Queries from the same start vertex that arrive while an earlier one is
+ *   still waiting to run are coalesced: one BFS answers all of them.
+ *
+ * serve() exposes the service on a loopback port for load testing: a client
+ * writes (start, goal) int pairs and reads back one byte per query, the
+ * ordinal of the Answer, in order.
+ *
+ * The Graph must not change while the service runs, unless it's a ConcurrentGraph.
+ */
+public class GraphQueryService implements Closeable {
+
+    public enum Answer { REACHABLE, UNREACHABLE, UNKNOWN }
+
+    private final Graph graph;
+    private final int maxVisited;
+    private final long timeout;
+    private final ExecutorService executor;
+    private final ConcurrentLinkedQueue<TraversalWorkspace> workspaces = new ConcurrentLinkedQueue<TraversalWorkspace>();
+    // Queries per start vertex that haven't started running yet
+    private final ConcurrentHashMap<Integer, Batch> waiting = new ConcurrentHashMap<Integer, Batch>();
+    private final List<Closeable> servers = new ArrayList<Closeable>();
+    private final AtomicLong searches = new AtomicLong();
+
+    /**
+     * Queries from one start vertex that will be answered by a single BFS.
+     */
+    private static class Batch {
+        final int start;
+        final List<Integer> goals = new ArrayList<Integer>(1);
+        final List<CompletableFuture<Answer>> answers = new ArrayList<CompletableFuture<Answer>>(1);
+        // Set once the BFS starts; no more queries can join then
+        boolean closed;
+
+        Batch(int start){
+            this.start = start;
+        }
+
+        synchronized boolean join(int goal, CompletableFuture<Answer> answer){
+            if (closed){
+                return false;
+            }
+            goals.add(goal);
+            answers.add(answer);
+            return true;
+        }
+
+        synchronized void close(){
+            closed = true;
+        }
+    }
+
+    /**
+     * A service without limits on the queries.
+     * @param graph the Graph to query
+     */
+    public GraphQueryService(Graph graph){
+        this(graph, Integer.MAX_VALUE, Long.MAX_VALUE);
+    }
+
+    /**
+     * @param graph the Graph to query
+     * @param maxVisited most vertices a query may visit
+     * @param timeout most nanoseconds a query may search
+     */
+    public GraphQueryService(Graph graph, int maxVisited, long timeout){
+        this.graph = graph;
+        this.maxVisited = maxVisited;
+        this.timeout = timeout;
+        this.executor = virtualThreadsOr(() ->
+                Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), GraphQueryService::daemon));
+    }
+
+    /**
+     * Executors.newVirtualThreadPerTaskExecutor() if this JVM has it, otherwise the fallback.
+     */
+    private static ExecutorService virtualThreadsOr(Supplier<ExecutorService> fallback){
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e){
+            return fallback.get();
+        }
+    }
+
+    private static Thread daemon(Runnable task){
+        Thread thread = new Thread(task);
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    /**
+     * Start a query.
+     * @param start start vertex
+     * @param goal toFind vertex
+     * @return completes with the answer once the search is done, or exceptionally once the service is closed
+     */
+    public CompletableFuture<Answer> submit(int start, int goal){
+        if (start < 0 || start >= graph.getVertices() || goal < 0 || goal >= graph.getVertices()){
+            throw new IndexOutOfBoundsException("Query " + start + " -> " + goal);
+        }
+        CompletableFuture<Answer> answer = new CompletableFuture<Answer>();
+        while (true){
+            Batch batch = waiting.get(start);
+            if (batch == null){
+                Batch created = new Batch(start);
+                created.join(goal, answer);
+                if (waiting.putIfAbsent(start, created) == null){
+                    try {
+                        executor.execute(() -> run(created));
+                    } catch (RejectedExecutionException e){
+                        // close() ran: fail the batch, including queries that joined it meanwhile
+                        waiting.remove(start, created);
+                        created.close();
+                        for (CompletableFuture<Answer> joined: created.answers){
+                            joined.completeExceptionally(e);
+                        }
+                    }
+                    return answer;
+                }
+            } else if (batch.join(goal, answer)){
+                return answer;
+            }
+            // The batch started in the meantime: try again with a new one
+            Thread.yield();
+        }
+    }
+
+    /**
+     * Run a query and wait for its answer.
+     * @param start start vertex
+     * @param goal toFind vertex
+     * @return the answer
+     */
+    public Answer reachable(int start, int goal){
+        return submit(start, goal).join();
+    }
+
+    private void run(Batch batch){
+        waiting.remove(batch.start, batch);
+        batch.close();
+        searches.incrementAndGet();
+        TraversalWorkspace workspace = workspaces.poll();
+        if (workspace == null){
+            workspace = new TraversalWorkspace(graph.getVertices());
+        }
+        try {
+            // The search stops as soon as every goal of the batch is visited
+            int[] goals = new int[batch.goals.size()];
+            for (int i = 0; i < goals.length; i++){
+                goals[i] = batch.goals.get(i);
+            }
+            boolean finished = workspace.searchWithin(graph, batch.start, goals, maxVisited, System.nanoTime() + timeout);
+            for (int i = 0; i < batch.goals.size(); i++){
+                Answer answer = workspace.visited(batch.goals.get(i)) ? Answer.REACHABLE
+                        : finished ? Answer.UNREACHABLE : Answer.UNKNOWN;
+                batch.answers.get(i).complete(answer);
+            }
+        } catch (RuntimeException e){
+            for (CompletableFuture<Answer> answer: batch.answers){
+                answer.completeExceptionally(e);
+            }
+        } finally {
+            workspaces.offer(workspace);
+        }
+    }
+
+    /**
+     * @return number of searches run so far; fewer than queries when queries were coalesced
+     */
+    public long searchCount(){
+        return searches.get();
+    }
+
+    /**
+     * Accept query connections on a loopback port.
+     * @param port port to listen on, 0 for any free port
+     * @return the port listened on
+     * @throws IOException if the port can't be opened
+     */
+    public int serve(int port) throws IOException {
+        ServerSocket server = new ServerSocket(port, 128, InetAddress.getLoopbackAddress());
+        ExecutorService connections = virtualThreadsOr(() -> Executors.newCachedThreadPool(GraphQueryService::daemon));
+        synchronized (servers){
+            servers.add(server);
+            servers.add(connections::shutdownNow);
+        }
+        connections.execute(() -> {
+            // Pause after a failed accept, doubling up to a second while failures go on
+            long backoff = 0;
+            while (!server.isClosed()){
+                try {
+                    Socket socket = server.accept();
+                    connections.execute(() -> handle(socket));
+                    backoff = 0;
+                } catch (IOException e){
+                    if (server.isClosed()){
+                        // closed by close()
+                        return;
+                    }
+                    // e.g. out of file descriptors: retrying at once would only spin
+                    backoff = Math.min(1000, Math.max(1, backoff * 2));
+                    try {
+                        Thread.sleep(backoff);
+                    } catch (InterruptedException interrupted){
+                        // shutdownNow() from close()
+                        return;
+                    }
+                }
+            }
+        });
+        return server.getLocalPort();
+    }
+
+    private void handle(Socket socket){
+        try (Socket connection = socket){
+            connection.setTcpNoDelay(true);
+            DataInputStream in = new DataInputStream(new BufferedInputStream(connection.getInputStream(), 1 << 16));
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(connection.getOutputStream(), 1 << 16));
+            // Queries read but not answered yet, in arrival order
+            List<CompletableFuture<Answer>> pending = new ArrayList<CompletableFuture<Answer>>();
+            while (true){
+                int start, goal;
+                try {
+                    start = in.readInt();
+                    goal = in.readInt();
+                } catch (EOFException e){
+                    return;
+                }
+                try {
+                    pending.add(submit(start, goal).exceptionally(e -> Answer.UNKNOWN));
+                } catch (RuntimeException e){
+                    pending.add(CompletableFuture.completedFuture(Answer.UNKNOWN));
+                }
+                // Pipelined queries run concurrently; answer them once the client stops sending
+                if (in.available() < 8 || pending.size() >= 1024){
+                    for (CompletableFuture<Answer> answer: pending){
+                        out.write(answer.join().ordinal());
+                    }
+                    pending.clear();
+                    out.flush();
+                }
+            }
+        } catch (IOException e){
+            // The client went away
+        }
+    }
+
+    /**
+     * Stop the servers and the query threads.
+     */
+    @Override
+    public void close(){
+        synchronized (servers){
+            for (Closeable server: servers){
+                try {
+                    server.close();
+                } catch (IOException e){
+                    // nothing left to do with it
+                }
+            }
+            servers.clear();
+        }
+        executor.shutdown();
+    }
+
+    public static void main(String[] args) throws Exception {
+        int n = 100000;
+        Random random = new Random(1);
+        Graph gh = new AdjacencyList();
+        gh.addVertices(n);
+        for (int i = 0; i < 3 * n; i++){
+            gh.addEdges(random.nextInt(n), random.nextInt(n));
+        }
+        try (GraphQueryService service = new GraphQueryService(gh.toCsr(), 1000, TimeUnit.MILLISECONDS.toNanos(10))){
+            int port = service.serve(0);
+            int clients = 8, perClient = 20000;
+            long begin = System.nanoTime();
+            List<Thread> threads = new ArrayList<Thread>();
+            for (int c = 0; c < clients; c++){
+                int seed = c;
+                Thread client = new Thread(() -> {
+                    Random queries = new Random(seed);
+                    try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port)){
+                        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+                        DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+                        // Keep up to 64 queries in flight
+                        for (int sent = 0, received = 0; received < perClient; ){
+                            while (sent < perClient && sent - received < 64){
+                                out.writeInt(queries.nextInt(100));
+                                out.writeInt(queries.nextInt(n));
+                                sent++;
+                            }
+                            out.flush();
+                            in.readByte();
+                            received++;
+                        }
+                    } catch (IOException e){
+                        throw new RuntimeException(e);
+                    }
+                });
+                client.start();
+                threads.add(client);
+            }
+            for (Thread client: threads){
+                client.join();
+            }
+            double seconds = (System.nanoTime() - begin) / 1e9;
+            System.out.println("Queries per second: " + (long) (clients * perClient / seconds)
+                    + ", searches run: " + service.searchCount());
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package Graphs;
+
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntConsumer;
+
+/**
+ * A class that implements a read-only directed graph backed by a memory-mapped file.
+ *
+ * The graph may have self-loops, parallel edges.
+ * Vertices are labeled by integers 0 .. n-1
+ * and don't have String labels.
+ * The edges of the graph are not labeled, but may carry weights.
+ *
+ * Representation of edges via CSR arrays that stay in the file written by
+ * GraphFile.write: neighbor queries read the mapped buffers directly,
+ * nothing is copied onto the heap. Use GraphFile.map to create one.
+ */
+public class MappedGraph extends Graph{
+    private final IntBuffer offsets;
+    private final IntBuffer targets;
+    private final IntBuffer inOffsets;
+    private final IntBuffer sources;
+    // weights.get(i) is the weight of the edge to targets.get(i), or null if unweighted
+    private final DoubleBuffer weights;
+
+    MappedGraph(int vertices, int edges, IntBuffer offsets, IntBuffer targets,
+                IntBuffer inOffsets, IntBuffer sources, DoubleBuffer weights){
+        super(vertices, edges);
+        this.offsets = offsets;
+        this.targets = targets;
+        this.inOffsets = inOffsets;
+        this.sources = sources;
+        this.weights = weights;
+    }
+
+    /**
+     * A mapped Graph can't be changed.
+     */
+    @Override
+    public void implementAddVertex() {
+        throw new UnsupportedOperationException("MappedGraph is read-only");
+    }
+
+    /**
+     * A mapped Graph can't be changed.
+     */
+    @Override
+    public void implementAddEdge(int vertex1, int vertex2) {
+        throw new UnsupportedOperationException("MappedGraph is read-only");
+    }
+
+    /**
+     * Implement the abstract method for finding all
+     * out-neighbors of a vertex.
+     * @param v Index of vertex.
+     * @return List<Integer> a list of indices of vertices.
+     */
+    @Override
+    public List<Integer> getNeighbors(int v) {
+        List<Integer> neighbors = new ArrayList<Integer>(outDegree(v));
+        forEachNeighbor(v, neighbors::add);
+        return neighbors;
+    }
+
+    /**
+     * Visit the out-neighbors of v straight from the mapped targets section.
+     * @param v Index of vertex.
+     * @param action called with the index of each out-neighbor.
+     */
+    @Override
+    public void forEachNeighbor(int v, IntConsumer action){
+        for (int i = offsets.get(v); i < offsets.get(v + 1); i++){
+            action.accept(targets.get(i));
+        }
+    }
+
+    /**
+     * Visit the out-neighbors of v with the weights of the edges to them,
+     * read from the mapped weights section.
+     * @param v Index of vertex.
+     * @param action called with each out-neighbor and edge weight.
+     */
+    @Override
+    public void forEachWeightedNeighbor(int v, EdgeConsumer action){
+        for (int i = offsets.get(v); i < offsets.get(v + 1); i++){
+            action.accept(targets.get(i), weights == null ? 1.0 : weights.get(i));
+        }
+    }
+
+    /**
+     * @return true if the file was written from a weighted Graph.
+     */
+    @Override
+    public boolean isWeighted(){
+        return weights != null;
+    }
+
+    /**
+     * Implement the abstract method for finding all
+     * in-neighbors of a vertex.
+     * @param v Index of vertex.
+     * @return List<Integer> a list of indices of vertices.
+     */
+    @Override
+    public List<Integer> getInNeighbors(int v) {
+        List<Integer> inNeighbors = new ArrayList<Integer>(inDegree(v));
+        forEachInNeighbor(v, inNeighbors::add);
+        return inNeighbors;
+    }
+
+    /**
+     * Visit the in-neighbors of v straight from the mapped sources section.
+     * @param v Index of vertex.
+     * @param action called with the index of each in-neighbor.
+     */
+    @Override
+    public void forEachInNeighbor(int v, IntConsumer action){
+        for (int i = inOffsets.get(v); i < inOffsets.get(v + 1); i++){
+            action.accept(sources.get(i));
+        }
+    }
+
+    /**
+     * @param v Index of vertex.
+     * @return the out-degree of v, read from the mapped offsets.
+     */
+    @Override
+    public int outDegree(int v){
+        return offsets.get(v + 1) - offsets.get(v);
+    }
+
+    /**
+     * @param v Index of vertex.
+     * @return the in-degree of v, read from the mapped in-offsets.
+     */
+    @Override
+    public int inDegree(int v){
+        return inOffsets.get(v + 1) - inOffsets.get(v);
+    }
+
+    /**
+     * Implement the abstract method for finding all
+     * vertices reachable by two hops from v.
+     * @param v The starting vertex
+     * @return List<Integer> a list of indices of vertices.
+     */
+    @Override
+    public List<Integer> getDistance2(int v) {
+        List<Integer> twoHop = new ArrayList<Integer>();
+        forEachNeighbor(v, i -> forEachNeighbor(i, twoHop::add));
+        return twoHop;
+    }
+}
@@ -0,0 +1,110 @@
+package Graphs;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * A class that implements multi-source BFS (MS-BFS).
+ *
+ * Up to 64 BFS traversals run together: every vertex has a long in which
+ * bit i says whether traversal i has seen it (seen), has it in its current
+ * frontier (visit) or has just discovered it (visitNext). Expanding a vertex
+ * reads its neighbors once and pushes all traversals that have it in their
+ * frontier along each edge with a single OR, so the adjacency is read once
+ * per level for the whole batch instead of once per source (Then et al.).
+ *
+ * Batches of 64 sources run in parallel with each other.
+ */
+public class MultiSourceBreadthFirstSearch {
+    // Number of traversals that share one batch, one per bit of a long
+    private static final int BATCH = 64;
+
+    /**
+     * Hop distances from every source to every vertex.
+     *
+     * @param graph the Graph to search, frozen into CSR form
+     * @param sources the start vertices
+     * @return distances[i][v] is the number of edges on a shortest path
+     * from sources[i] to v, or -1 if v can't be reached
+     */
+    public static int[][] distances(Graph graph, int[] sources){
+        CsrGraph csr = graph.toCsr();
+        for (int source: sources){
+            if (source < 0 || source >= csr.getVertices()){
+                throw new IndexOutOfBoundsException();
+            }
+        }
+        int[][] distances = new int[sources.length][];
+        int batches = (sources.length + BATCH - 1) / BATCH;
+        IntStream.range(0, batches).parallel().forEach(b -> {
+            int from = b * BATCH;
+            int to = Math.min(sources.length, from + BATCH);
+            searchBatch(csr, sources, from, to, distances);
+        });
+        return distances;
+    }
+
+    /**
+     * Run the traversals of sources[from .. to-1] together; bit i stands for sources[from+i].
+     */
+    private static void searchBatch(CsrGraph graph, int[] sources, int from, int to, int[][] distances){
+        int n = graph.getVertices();
+        long[] seen = new long[n];
+        long[] visit = new long[n];
+        long[] visitNext = new long[n];
+        for (int i = from; i < to; i++){
+            distances[i] = new int[n];
+            Arrays.fill(distances[i], -1);
+            long bit = 1L << (i - from);
+            seen[sources[i]] |= bit;
+            visit[sources[i]] |= bit;
+            distances[i][sources[i]] = 0;
+        }
+        boolean active = true;
+        for (int level = 1; active; level++){
+            active = false;
+            for (int v = 0; v < n; v++){
+                long traversals = visit[v];
+                if (traversals == 0){
+                    continue;
+                }
+                for (int e = graph.offsets[v]; e < graph.offsets[v + 1]; e++){
+                    int w = graph.targets[e];
+                    // Traversals that reach w for the first time through this edge
+                    long discovered = traversals & ~seen[w];
+                    if (discovered != 0){
+                        visitNext[w] |= discovered;
+                        seen[w] |= discovered;
+                        active = true;
+                        while (discovered != 0){
+                            distances[from + Long.numberOfTrailingZeros(discovered)][w] = level;
+                            discovered &= discovered - 1;
+                        }
+                    }
+                }
+            }
+            // visitNext becomes the frontier of the next level
+            long[] swap = visit;
+            visit = visitNext;
+            visitNext = swap;
+            Arrays.fill(visitNext, 0);
+        }
+    }
+
+    public static void main(String[] args) {
+        Graph gh = new AdjacencyList();
+        for (int i = 0; i < 6; i++){
+            gh.addVertex();
+        }
+        gh.addEdges(0, 1);
+        gh.addEdges(1, 2);
+        gh.addEdges(2, 3);
+        gh.addEdges(3, 4);
+        gh.addEdges(4, 0);
+
+        int[][] distances = gh.multiSourceBfs(new int[]{0, 2, 5});
+        System.out.println("Distances from Vertex 0 should be 0 1 2 3 4 -1: " + Arrays.toString(distances[0]));
+        System.out.println("Distances from Vertex 2 should be 3 4 0 1 2 -1: " + Arrays.toString(distances[1]));
+        System.out.println("Distances from Vertex 5 should be -1 -1 -1 -1 -1 0: " + Arrays.toString(distances[2]));
+    }
+}
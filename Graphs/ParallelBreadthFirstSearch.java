@@ -0,0 +1,248 @@
+package Graphs;
+
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.stream.IntStream;
+
+/**
+ * A class that implements a parallel, direction-optimizing BFS.
+ *
+ * The search runs level by level on a ForkJoinPool. The current frontier,
+ * the next frontier and the visited vertices are bitsets with one bit per vertex.
+ * Each level is expanded either
+ * top-down: every frontier vertex claims its unvisited out-neighbors, or
+ * bottom-up: every unvisited vertex looks for an in-neighbor in the frontier.
+ * Bottom-up wins when the frontier is large, because an unvisited vertex
+ * can stop at its first frontier in-neighbor (Beamer et al.).
+ *
+ * The search works on a CSR snapshot, so any Graph can be searched.
+ */
+public class ParallelBreadthFirstSearch {
+    // Switch to bottom-up when the frontier has more than 1/ALPHA of the unexplored edges
+    private static final int ALPHA = 14;
+    // Switch back to top-down when the frontier has less than 1/BETA of the vertices
+    private static final int BETA = 24;
+
+    private final CsrGraph graph;
+    private final ForkJoinPool pool;
+
+    public ParallelBreadthFirstSearch(Graph graph){
+        this(graph, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * @param graph the Graph to search, frozen into CSR form.
+     * @param pool the pool whose threads expand the levels.
+     */
+    public ParallelBreadthFirstSearch(Graph graph, ForkJoinPool pool){
+        this.graph = graph.toCsr();
+        this.pool = pool;
+    }
+
+    /**
+     * Result of a search: the BFS tree and the hop distance of every vertex.
+     * Unreached vertices have parent and distance -1, and so does
+     * the parent of the start vertex.
+     */
+    public static class Result {
+        private final int[] parent;
+        private final int[] distance;
+
+        Result(int[] parent, int[] distance){
+            this.parent = parent;
+            this.distance = distance;
+        }
+
+        public int[] getParent() {
+            return parent;
+        }
+
+        public int[] getDistance() {
+            return distance;
+        }
+
+        /**
+         * @return the BFS tree as a Map from each reached vertex to its parent,
+         * like the one Graph.breadthFirstSearch returns.
+         */
+        public Map<Integer, Integer> toParentMap(){
+            Map<Integer, Integer> map = new HashMap<Integer, Integer>();
+            for (int v = 0; v < parent.length; v++){
+                if (parent[v] != -1){
+                    map.put(v, parent[v]);
+                }
+            }
+            return map;
+        }
+    }
+
+    /**
+     * Search every vertex reachable from start.
+     * @param start start vertex
+     * @return the parent and distance of every vertex
+     */
+    public Result search(int start){
+        int n = graph.getVertices();
+        if (start < 0 || start >= n){
+            throw new IndexOutOfBoundsException();
+        }
+        int words = (n + 63) >>> 6;
+        int[] parent = new int[n];
+        int[] distance = new int[n];
+        Arrays.fill(parent, -1);
+        Arrays.fill(distance, -1);
+        AtomicLongArray visited = new AtomicLongArray(words);
+        AtomicLongArray frontier = new AtomicLongArray(words);
+        AtomicLongArray next = new AtomicLongArray(words);
+
+        distance[start] = 0;
+        visited.set(start >>> 6, 1L << start);
+        frontier.set(start >>> 6, 1L << start);
+        long frontierSize = 1;
+        long frontierEdges = outDegree(start);
+        long unexploredEdges = graph.getEdges() - frontierEdges;
+        boolean bottomUp = false;
+
+        for (int level = 1; frontierSize > 0; level++){
+            // Pick the direction for this level
+            if (!bottomUp && frontierEdges > unexploredEdges / ALPHA){
+                bottomUp = true;
+            } else if (bottomUp && frontierSize < n / BETA){
+                bottomUp = false;
+            }
+            int depth = level;
+            AtomicLongArray current = frontier, discovered = next;
+            if (bottomUp){
+                inPool(() -> IntStream.range(0, words).parallel().forEach(w ->
+                        bottomUpWord(w, depth, current, discovered, visited, parent, distance)));
+            } else {
+                inPool(() -> IntStream.range(0, words).parallel().forEach(w ->
+                        topDownWord(w, depth, current, discovered, visited, parent, distance)));
+            }
+            // The discovered vertices become the frontier of the next level
+            frontierSize = sumInPool(() -> IntStream.range(0, words).parallel()
+                    .mapToLong(w -> Long.bitCount(discovered.get(w))).sum());
+            frontierEdges = sumInPool(() -> IntStream.range(0, words).parallel()
+                    .mapToLong(w -> degreeSum(discovered.get(w), w)).sum());
+            unexploredEdges -= frontierEdges;
+            frontier = discovered;
+            next = current;
+            AtomicLongArray cleared = next;
+            inPool(() -> IntStream.range(0, words).parallel().forEach(w -> cleared.set(w, 0)));
+        }
+        return new Result(parent, distance);
+    }
+
+    /**
+     * Top-down step for the frontier vertices in word w:
+     * claim every unvisited out-neighbor with a CAS on the visited bitset,
+     * so each vertex gets exactly one parent.
+     */
+    private void topDownWord(int w, int level, AtomicLongArray frontier, AtomicLongArray next,
+                             AtomicLongArray visited, int[] parent, int[] distance){
+        long word = frontier.get(w);
+        while (word != 0){
+            int u = (w << 6) + Long.numberOfTrailingZeros(word);
+            for (int i = graph.offsets[u]; i < graph.offsets[u + 1]; i++){
+                int v = graph.targets[i];
+                if (claim(visited, v)){
+                    parent[v] = u;
+                    distance[v] = level;
+                    next.getAndAccumulate(v >>> 6, 1L << v, (a, b) -> a | b);
+                }
+            }
+            word &= word - 1;
+        }
+    }
+
+    /**
+     * Bottom-up step for the unvisited vertices in word w:
+     * each one stops at its first in-neighbor that is in the frontier.
+     * Only this task writes word w of the bitsets, so no CAS is needed.
+     */
+    private void bottomUpWord(int w, int level, AtomicLongArray frontier, AtomicLongArray next,
+                              AtomicLongArray visited, int[] parent, int[] distance){
+        int n = graph.getVertices();
+        long unvisited = ~visited.get(w);
+        long found = 0;
+        while (unvisited != 0){
+            int v = (w << 6) + Long.numberOfTrailingZeros(unvisited);
+            if (v >= n){
+                break;
+            }
+            for (int i = graph.inOffsets[v]; i < graph.inOffsets[v + 1]; i++){
+                int u = graph.sources[i];
+                if ((frontier.get(u >>> 6) & (1L << u)) != 0){
+                    parent[v] = u;
+                    distance[v] = level;
+                    found |= 1L << v;
+                    break;
+                }
+            }
+            unvisited &= unvisited - 1;
+        }
+        if (found != 0){
+            next.set(w, found);
+            visited.set(w, visited.get(w) | found);
+        }
+    }
+
+    // Atomically set bit v, return true if this call was the one that set it
+    private static boolean claim(AtomicLongArray bits, int v){
+        int w = v >>> 6;
+        long mask = 1L << v;
+        while (true){
+            long old = bits.get(w);
+            if ((old & mask) != 0){
+                return false;
+            }
+            if (bits.compareAndSet(w, old, old | mask)){
+                return true;
+            }
+        }
+    }
+
+    private int outDegree(int v){
+        return graph.offsets[v + 1] - graph.offsets[v];
+    }
+
+    private long degreeSum(long word, int w){
+        long sum = 0;
+        while (word != 0){
+            sum += outDegree((w << 6) + Long.numberOfTrailingZeros(word));
+            word &= word - 1;
+        }
+        return sum;
+    }
+
+    // Run a parallel stream inside our pool rather than the common pool
+    private void inPool(Runnable task){
+        pool.submit(task).join();
+    }
+
+    private long sumInPool(Callable<Long> task){
+        return pool.submit(task).join();
+    }
+
+    public static void main(String[] args) {
+        Graph gh = new AdjacencyMatrix();
+        for (int i = 0; i < 13; i++){
+            gh.addVertex();
+        }
+        gh.addEdges(0, 1);
+        gh.addEdges(0, 2);
+        gh.addEdges(2, 3);
+        gh.addEdges(3, 4);
+        gh.addEdges(3, 5);
+        gh.addEdges(5, 10);
+        gh.addEdges(5, 9);
+        gh.addEdges(9, 11);
+
+        Result result = new ParallelBreadthFirstSearch(gh).search(0);
+        System.out.println("Parents: " + result.toParentMap());
+        System.out.println("Distance of Vertex 11 should be 5: " + result.getDistance()[11]);
+        System.out.println("Distance of Vertex 12 should be -1: " + result.getDistance()[12]);
+    }
+}
@@ -0,0 +1,221 @@
+package Graphs;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.Arrays;
+
+/**
+ * A worker process of a PartitionedGraph.
+ *
+ * Worker p of k owns the vertices v with v % k == p and stores their
+ * out-edges; vertex v is kept at local index v / k. The worker listens on a
+ * loopback port, prints the port on standard output, and then serves one
+ * coordinator connection until it is told to stop.
+ *
+ * During a BFS the worker keeps the visited marks and the frontier of its own
+ * vertices. The coordinator drives each level in two steps: EXPAND collects the
+ * out-neighbors of the frontier in batches by owning worker, which the
+ * coordinator fetches with PULL; then VISIT_BEGIN, VISIT and VISIT_END hand the
+ * worker the neighbors it owns, of which the unvisited ones become the next frontier.
+ */
+public class PartitionWorker {
+    static final int ADD_EDGES = 1;
+    static final int VERTICES = 2;
+    static final int START = 3;
+    static final int EXPAND = 4;
+    static final int VISIT = 5;
+    static final int STOP = 6;
+    static final int PULL = 7;
+    static final int VISIT_BEGIN = 8;
+    static final int VISIT_END = 9;
+
+    private final int partition;
+    private final int partitions;
+    // adj[local][0 .. outCount[local]-1] are the out-neighbors of the local vertex
+    private int[][] adj = new int[0][];
+    private int[] outCount = new int[0];
+    private int vertices;
+
+    // visitedEpoch[local] == epoch when the vertex was visited by the current search
+    private int[] visitedEpoch = new int[0];
+    private int epoch;
+    private int[] frontier = new int[0];
+    private int frontierSize;
+    private int goal;
+    // Whether the goal joined the frontier during the current VISIT_BEGIN .. VISIT_END
+    private boolean found;
+
+    // Outgoing neighbors of the frontier, one buffer per owning worker
+    private int[][] outgoing;
+    private int[] outgoingSize;
+
+    PartitionWorker(int partition, int partitions){
+        this.partition = partition;
+        this.partitions = partitions;
+        outgoing = new int[partitions][16];
+        outgoingSize = new int[partitions];
+    }
+
+    private int local(int v){
+        return v / partitions;
+    }
+
+    private void setVertices(int n){
+        vertices = n;
+        // vertices partition, partition + k, ... below n
+        int owned = n > partition ? (n - partition + partitions - 1) / partitions : 0;
+        if (owned > adj.length){
+            int capacity = Math.max(owned, adj.length * 2);
+            adj = Arrays.copyOf(adj, capacity);
+            outCount = Arrays.copyOf(outCount, capacity);
+            visitedEpoch = Arrays.copyOf(visitedEpoch, capacity);
+            frontier = Arrays.copyOf(frontier, capacity);
+        }
+    }
+
+    private void addEdge(int src, int dst){
+        int u = local(src);
+        int[] row = adj[u];
+        if (row == null){
+            row = adj[u] = new int[2];
+        } else if (outCount[u] == row.length){
+            row = adj[u] = Arrays.copyOf(row, row.length * 2);
+        }
+        row[outCount[u]++] = dst;
+    }
+
+    private void start(int source, int goal){
+        this.goal = goal;
+        if (++epoch == Integer.MAX_VALUE){
+            Arrays.fill(visitedEpoch, 0);
+            epoch = 1;
+        }
+        frontierSize = 0;
+        if (source % partitions == partition){
+            visitedEpoch[local(source)] = epoch;
+            frontier[frontierSize++] = source;
+        }
+    }
+
+    private void expand(){
+        Arrays.fill(outgoingSize, 0);
+        for (int i = 0; i < frontierSize; i++){
+            int u = local(frontier[i]);
+            for (int j = 0; j < outCount[u]; j++){
+                int w = adj[u][j];
+                int owner = w % partitions;
+                // Drop neighbors this worker owns and already visited
+                if (owner == partition && visitedEpoch[local(w)] == epoch){
+                    continue;
+                }
+                if (outgoingSize[owner] == outgoing[owner].length){
+                    outgoing[owner] = Arrays.copyOf(outgoing[owner], outgoing[owner].length * 2);
+                }
+                outgoing[owner][outgoingSize[owner]++] = w;
+            }
+        }
+    }
+
+    /**
+     * Send the neighbors found for worker q by the last EXPAND.
+     */
+    private void pull(int q, DataOutputStream out) throws IOException {
+        out.writeInt(outgoingSize[q]);
+        for (int i = 0; i < outgoingSize[q]; i++){
+            out.writeInt(outgoing[q][i]);
+        }
+    }
+
+    /**
+     * Start the next frontier with the neighbors this worker found for itself.
+     */
+    private void visitBegin(){
+        frontierSize = 0;
+        found = false;
+        for (int i = 0; i < outgoingSize[partition]; i++){
+            visit(outgoing[partition][i]);
+        }
+    }
+
+    private void visit(int w){
+        int local = local(w);
+        if (visitedEpoch[local] != epoch){
+            visitedEpoch[local] = epoch;
+            frontier[frontierSize++] = w;
+            found |= w == goal;
+        }
+    }
+
+    /**
+     * Serve commands until STOP or until the coordinator disconnects.
+     */
+    void serve(Socket socket) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream(), 1 << 16));
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream(), 1 << 16));
+        while (true){
+            int command = in.read();
+            switch (command){
+                case ADD_EDGES:
+                    int count = in.readInt();
+                    for (int i = 0; i < count; i++){
+                        addEdge(in.readInt(), in.readInt());
+                    }
+                    break;
+                case VERTICES:
+                    setVertices(in.readInt());
+                    break;
+                case START:
+                    start(in.readInt(), in.readInt());
+                    break;
+                case EXPAND:
+                    expand();
+                    break;
+                case PULL:
+                    pull(in.readInt(), out);
+                    out.flush();
+                    break;
+                case VISIT_BEGIN:
+                    visitBegin();
+                    break;
+                case VISIT:
+                    int visits = in.readInt();
+                    for (int i = 0; i < visits; i++){
+                        visit(in.readInt());
+                    }
+                    break;
+                case VISIT_END:
+                    out.writeInt(frontierSize);
+                    out.writeBoolean(found);
+                    out.flush();
+                    break;
+                case STOP:
+                case -1:
+                    return;
+                default:
+                    throw new IOException("Unknown command " + command);
+            }
+        }
+    }
+
+    /**
+     * @param args partition index and number of partitions
+     */
+    public static void main(String[] args) throws IOException {
+        int partition = Integer.parseInt(args[0]);
+        int partitions = Integer.parseInt(args[1]);
+        try (ServerSocket server = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())){
+            System.out.println(server.getLocalPort());
+            System.out.flush();
+            try (Socket socket = server.accept()){
+                socket.setTcpNoDelay(true);
+                new PartitionWorker(partition, partitions).serve(socket);
+            }
+        }
+    }
+}
@@ -0,0 +1,321 @@
+package Graphs;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A class that spreads a directed graph over several worker JVMs.
+ *
+ * Vertices are hash-partitioned: vertex v and its out-edges live in worker
+ * v % k, so no single heap has to hold the whole Graph. The workers are
+ * PartitionWorker processes started on this machine, and this object is the
+ * coordinator: it talks to each of them over a loopback socket.
+ *
+ * Reachability runs as a level-synchronous BFS. For every level the
+ * coordinator asks all workers to expand their part of the frontier at once;
+ * each worker keeps the neighbors it found in batches by owning worker.
+ * The coordinator then streams every batch from the worker that found it to
+ * the owner, which keeps the unvisited ones as its next frontier. Batches pass
+ * through the coordinator a few bytes at a time and are never stored in its heap.
+ * Only frontier batches cross process boundaries; visited marks stay with the owners.
+ *
+ * Edges are buffered and sent in batches. A PartitionedGraph must be closed
+ * to stop its workers. It is not thread-safe.
+ */
+public class PartitionedGraph implements Closeable {
+    // Edges buffered per worker before they are sent
+    private static final int BATCH = 8192;
+
+    private final int partitions;
+    private final List<Process> processes = new ArrayList<Process>();
+    private final List<Socket> sockets = new ArrayList<Socket>();
+    private final DataInputStream[] in;
+    private final DataOutputStream[] out;
+    // pending[p] holds src, dst pairs waiting to be sent to worker p
+    private final int[][] pending;
+    private final int[] pendingSize;
+    private int vertices;
+    private long edges;
+
+    /**
+     * Start the workers with the default JVM options.
+     * @param partitions number of worker processes
+     * @throws IOException if a worker can't be started or reached
+     */
+    public PartitionedGraph(int partitions) throws IOException {
+        this(partitions, new String[0]);
+    }
+
+    /**
+     * Start the workers.
+     * @param partitions number of worker processes
+     * @param jvmOptions options for each worker JVM, e.g. "-Xmx4g"
+     * @throws IOException if a worker can't be started or reached
+     */
+    public PartitionedGraph(int partitions, String... jvmOptions) throws IOException {
+        if (partitions < 1){
+            throw new IllegalArgumentException("Need at least one partition");
+        }
+        this.partitions = partitions;
+        in = new DataInputStream[partitions];
+        out = new DataOutputStream[partitions];
+        pending = new int[partitions][2 * BATCH];
+        pendingSize = new int[partitions];
+        String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+        try {
+            for (int p = 0; p < partitions; p++){
+                List<String> command = new ArrayList<String>();
+                command.add(java);
+                command.addAll(Arrays.asList(jvmOptions));
+                command.add("-cp");
+                command.add(System.getProperty("java.class.path"));
+                command.add(PartitionWorker.class.getName());
+                command.add(Integer.toString(p));
+                command.add(Integer.toString(partitions));
+                Process process = new ProcessBuilder(command)
+                        .redirectError(ProcessBuilder.Redirect.INHERIT)
+                        .start();
+                processes.add(process);
+            }
+            for (int p = 0; p < partitions; p++){
+                // The worker's first line of output is the port it listens on
+                BufferedReader reader = new BufferedReader(new InputStreamReader(
+                        processes.get(p).getInputStream(), StandardCharsets.US_ASCII));
+                String line = reader.readLine();
+                if (line == null){
+                    throw new IOException("Worker " + p + " exited before listening");
+                }
+                Socket socket = new Socket(InetAddress.getLoopbackAddress(), Integer.parseInt(line.trim()));
+                socket.setTcpNoDelay(true);
+                sockets.add(socket);
+                in[p] = new DataInputStream(new BufferedInputStream(socket.getInputStream(), 1 << 16));
+                out[p] = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream(), 1 << 16));
+            }
+        } catch (IOException | RuntimeException e){
+            close();
+            throw e;
+        }
+    }
+
+    /**
+     * Add n new vertices, numbered after the existing ones.
+     * @param n number of vertices to add
+     * @return index of the first new vertex
+     * @throws IOException if a worker can't be reached
+     */
+    public int addVertices(int n) throws IOException {
+        if (n < 0){
+            throw new IllegalArgumentException("Negative number of vertices: " + n);
+        }
+        if (n > Integer.MAX_VALUE - vertices){
+            throw new IllegalArgumentException("Too many vertices: " + vertices + " + " + n);
+        }
+        int first = vertices;
+        vertices += n;
+        for (int p = 0; p < partitions; p++){
+            out[p].write(PartitionWorker.VERTICES);
+            out[p].writeInt(vertices);
+        }
+        return first;
+    }
+
+    /**
+     * Add an edge; it is sent to its worker with the next batch.
+     * @param vertex1 the index of the start point for the edge.
+     * @param vertex2 the index of the end point for the edge.
+     * @throws IOException if a worker can't be reached
+     */
+    public void addEdges(int vertex1, int vertex2) throws IOException {
+        if (vertex1 < 0 || vertex1 >= vertices || vertex2 < 0 || vertex2 >= vertices){
+            throw new IndexOutOfBoundsException("Edge " + vertex1 + " -> " + vertex2 + " outside 0 .. " + (vertices - 1));
+        }
+        int p = vertex1 % partitions;
+        pending[p][pendingSize[p]++] = vertex1;
+        pending[p][pendingSize[p]++] = vertex2;
+        if (pendingSize[p] == pending[p].length){
+            send(p);
+        }
+        edges++;
+    }
+
+    /**
+     * Copy all vertices and edges of a Graph.
+     * @param graph the Graph to copy
+     * @throws IOException if a worker can't be reached
+     */
+    public void load(Graph graph) throws IOException {
+        int first = vertices;
+        addVertices(graph.getVertices());
+        for (int v = 0; v < graph.getVertices(); v++){
+            for (int w: graph.getNeighbors(v)){
+                addEdges(first + v, first + w);
+            }
+        }
+    }
+
+    private void send(int p) throws IOException {
+        if (pendingSize[p] == 0){
+            return;
+        }
+        out[p].write(PartitionWorker.ADD_EDGES);
+        out[p].writeInt(pendingSize[p] / 2);
+        for (int i = 0; i < pendingSize[p]; i++){
+            out[p].writeInt(pending[p][i]);
+        }
+        pendingSize[p] = 0;
+    }
+
+    /**
+     * Number of hops on a shortest path from start to goal.
+     * @param start start vertex
+     * @param goal toFind vertex
+     * @return the distance, or -1 if goal can't be reached
+     * @throws IOException if a worker can't be reached
+     */
+    public int distance(int start, int goal) throws IOException {
+        if (start < 0 || start >= vertices || goal < 0 || goal >= vertices){
+            throw new IllegalArgumentException("Query " + start + " -> " + goal + " outside 0 .. " + (vertices - 1));
+        }
+        if (start == goal){
+            return 0;
+        }
+        for (int p = 0; p < partitions; p++){
+            send(p);
+            out[p].write(PartitionWorker.START);
+            out[p].writeInt(start);
+            out[p].writeInt(goal);
+        }
+        for (int level = 1; ; level++){
+            // Every worker expands its frontier at once; the batches stay in the workers
+            for (int p = 0; p < partitions; p++){
+                out[p].write(PartitionWorker.EXPAND);
+                out[p].flush();
+            }
+            for (int q = 0; q < partitions; q++){
+                // Worker q takes its own batch without a round trip
+                out[q].write(PartitionWorker.VISIT_BEGIN);
+                for (int p = 0; p < partitions; p++){
+                    if (p != q){
+                        forward(p, q);
+                    }
+                }
+                out[q].flush();
+            }
+            // Asked only now, so no answer lands between the batches pulled from q
+            for (int q = 0; q < partitions; q++){
+                out[q].write(PartitionWorker.VISIT_END);
+                out[q].flush();
+            }
+            long frontier = 0;
+            boolean found = false;
+            for (int q = 0; q < partitions; q++){
+                frontier += in[q].readInt();
+                found |= in[q].readBoolean();
+            }
+            if (found){
+                return level;
+            }
+            if (frontier == 0){
+                return -1;
+            }
+        }
+    }
+
+    /**
+     * Pass the neighbors worker p found for worker q on to q, one int at a
+     * time, so the coordinator never holds a whole batch. p only writes and
+     * q only reads meanwhile, so neither can wait on the other.
+     */
+    private void forward(int p, int q) throws IOException {
+        out[p].write(PartitionWorker.PULL);
+        out[p].writeInt(q);
+        out[p].flush();
+        int count = in[p].readInt();
+        out[q].write(PartitionWorker.VISIT);
+        out[q].writeInt(count);
+        for (int i = 0; i < count; i++){
+            out[q].writeInt(in[p].readInt());
+        }
+    }
+
+    /**
+     * Check whether goal can be reached from start.
+     * @param start start vertex
+     * @param goal toFind vertex
+     * @return true if there is a path from start to goal
+     * @throws IOException if a worker can't be reached
+     */
+    public boolean reachable(int start, int goal) throws IOException {
+        return distance(start, goal) != -1;
+    }
+
+    public int getVertices() {
+        return vertices;
+    }
+
+    public long getEdges() {
+        return edges;
+    }
+
+    public int getPartitions() {
+        return partitions;
+    }
+
+    /**
+     * Stop the workers and close their connections.
+     */
+    @Override
+    public void close() {
+        for (int p = 0; p < sockets.size(); p++){
+            try {
+                out[p].write(PartitionWorker.STOP);
+                out[p].flush();
+                sockets.get(p).close();
+            } catch (IOException e){
+                // The worker is gone already; it's destroyed below anyway
+            }
+        }
+        for (Process process: processes){
+            try {
+                if (!process.waitFor(5, TimeUnit.SECONDS)){
+                    process.destroyForcibly();
+                }
+            } catch (InterruptedException e){
+                process.destroyForcibly();
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        Graph gh = new AdjacencyList();
+        gh.addVertices(13);
+        gh.addEdges(0, 1);
+        gh.addEdges(0, 2);
+        gh.addEdges(2, 3);
+        gh.addEdges(3, 4);
+        gh.addEdges(3, 5);
+        gh.addEdges(5, 10);
+        gh.addEdges(5, 9);
+
+        try (PartitionedGraph partitioned = new PartitionedGraph(3)){
+            partitioned.load(gh);
+            System.out.println("Distance from 0 to 10 should be 4: " + partitioned.distance(0, 10));
+            System.out.println("Vertex 3 should not be reachable from 1: " + partitioned.reachable(1, 3));
+        }
+    }
+}
@@ -0,0 +1,316 @@
+package Graphs;
+
+import java.util.Arrays;
+
+/**
+ * A class that answers "is there a path from a to b?" without traversing the Graph each time.
+ *
+ * The index is built from a snapshot of the Graph:
+ * - Strongly connected components are collapsed into single nodes, since every
+ *   vertex of a component reaches the same vertices. What is left is a DAG.
+ * - Small DAGs store their transitive closure: one bitset per node holding
+ *   every node it reaches. A query is a single bit test.
+ * - Larger DAGs get interval labels from a DFS in post-order. b's interval
+ *   inside a's DFS tree interval proves a reaches b; b's interval outside the
+ *   interval of everything a reaches proves it doesn't. Only the remaining
+ *   queries search the DAG, skipping nodes whose labels rule b out.
+ *
+ * A Graph only grows, so the index remembers the number of vertices and edges
+ * it was built for. When addVertex or addEdges changes them, the next query
+ * rebuilds the index first.
+ *
+ * Queries may run from several threads at once.
+ */
+public class ReachabilityIndex {
+    // DAGs with at most this many nodes store their transitive closure
+    private static final int CLOSURE_LIMIT = 8192;
+
+    private final Graph graph;
+    private volatile Labels labels;
+
+    /**
+     * Everything built from one snapshot of the Graph; never changed afterwards.
+     */
+    private static class Labels {
+        final int vertices;
+        final int edges;
+        // component[v] is the DAG node of vertex v
+        final int[] component;
+        // Edges between DAG nodes, CSR form
+        final int[] offsets;
+        final int[] targets;
+        // closure[x] holds every node reachable from x, or null for large DAGs
+        final long[][] closure;
+        // post[x]: DFS post-order number of x
+        // treeLow[x]: smallest post-order number in x's DFS tree
+        // low[x]: smallest post-order number of any node x reaches
+        final int[] post;
+        final int[] treeLow;
+        final int[] low;
+        final long buildNanos;
+
+        Labels(int vertices, int edges, int[] component, int[] offsets, int[] targets,
+               long[][] closure, int[] post, int[] treeLow, int[] low, long buildNanos){
+            this.vertices = vertices;
+            this.edges = edges;
+            this.component = component;
+            this.offsets = offsets;
+            this.targets = targets;
+            this.closure = closure;
+            this.post = post;
+            this.treeLow = treeLow;
+            this.low = low;
+            this.buildNanos = buildNanos;
+        }
+    }
+
+    // Visited stamps and stack of the fallback search, one set per thread
+    private static class Scratch {
+        int[] visitedEpoch = new int[0];
+        int[] stack = new int[0];
+        int epoch;
+    }
+
+    private final ThreadLocal<Scratch> scratch = ThreadLocal.withInitial(Scratch::new);
+
+    /**
+     * @param graph the Graph to answer queries for; the index is built on the first query.
+     */
+    public ReachabilityIndex(Graph graph){
+        this.graph = graph;
+    }
+
+    /**
+     * @param a start vertex
+     * @param b goal vertex
+     * @return true if there is a path from a to b
+     */
+    public boolean reachable(int a, int b){
+        Labels index = current();
+        int x = index.component[a];
+        int y = index.component[b];
+        if (x == y){
+            return true;
+        }
+        if (index.closure != null){
+            return (index.closure[x][y >>> 6] & (1L << y)) != 0;
+        }
+        if (index.treeLow[x] <= index.post[y] && index.post[y] <= index.post[x]){
+            return true;
+        }
+        if (!covers(index, x, y)){
+            return false;
+        }
+        return search(index, x, y);
+    }
+
+    /**
+     * Build the index now if the Graph changed since the last build.
+     */
+    public void refresh(){
+        current();
+    }
+
+    /**
+     * @return nanoseconds spent building the current index
+     */
+    public long buildNanos(){
+        return current().buildNanos;
+    }
+
+    /**
+     * @return approximate number of bytes held by the current index
+     */
+    public long memoryBytes(){
+        Labels index = current();
+        long bytes = 4L * (index.component.length + index.offsets.length + index.targets.length
+                + index.post.length + index.treeLow.length + index.low.length);
+        if (index.closure != null){
+            for (long[] row: index.closure){
+                bytes += 8L * row.length;
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * @return number of nodes in the DAG of strongly connected components
+     */
+    public int componentCount(){
+        return current().post.length;
+    }
+
+    private Labels current(){
+        Labels index = labels;
+        if (index == null || index.vertices != graph.getVertices() || index.edges != graph.getEdges()){
+            synchronized (this){
+                index = labels;
+                if (index == null || index.vertices != graph.getVertices() || index.edges != graph.getEdges()){
+                    index = build(graph);
+                    labels = index;
+                }
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Necessary condition for x reaching y: y's interval inside x's.
+     */
+    private static boolean covers(Labels index, int x, int y){
+        return index.low[x] <= index.low[y] && index.post[y] <= index.post[x];
+    }
+
+    /**
+     * DFS over the DAG from x, entering only nodes whose labels still allow reaching y.
+     */
+    private boolean search(Labels index, int x, int y){
+        Scratch s = scratch.get();
+        int c = index.post.length;
+        if (s.visitedEpoch.length < c){
+            s.visitedEpoch = new int[c];
+            s.stack = new int[c];
+            s.epoch = 0;
+        }
+        if (++s.epoch == Integer.MAX_VALUE){
+            Arrays.fill(s.visitedEpoch, 0);
+            s.epoch = 1;
+        }
+        int top = 0;
+        s.stack[top++] = x;
+        s.visitedEpoch[x] = s.epoch;
+        while (top > 0){
+            int u = s.stack[--top];
+            for (int i = index.offsets[u]; i < index.offsets[u + 1]; i++){
+                int w = index.targets[i];
+                if (w == y || (index.treeLow[w] <= index.post[y] && index.post[y] <= index.post[w])){
+                    return true;
+                }
+                if (s.visitedEpoch[w] != s.epoch && covers(index, w, y)){
+                    s.visitedEpoch[w] = s.epoch;
+                    s.stack[top++] = w;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static Labels build(Graph graph){
+        long begin = System.nanoTime();
+        CsrGraph csr = graph.toCsr();
+        int n = csr.getVertices();
+        int[] component = Components.stronglyConnected(csr);
+        int c = Components.count(component);
+
+        // Edges between different components, without duplicates
+        int[] offsets = new int[c + 1];
+        int[] members = new int[n];
+        int[] start = new int[c + 1];
+        for (int v = 0; v < n; v++){
+            start[component[v] + 1]++;
+        }
+        for (int x = 0; x < c; x++){
+            start[x + 1] += start[x];
+        }
+        int[] fill = Arrays.copyOf(start, c);
+        for (int v = 0; v < n; v++){
+            members[fill[component[v]]++] = v;
+        }
+        int[] targets = new int[csr.getEdges()];
+        int[] seen = new int[c];
+        Arrays.fill(seen, -1);
+        int count = 0;
+        for (int x = 0; x < c; x++){
+            for (int m = start[x]; m < start[x + 1]; m++){
+                int u = members[m];
+                for (int i = csr.offsets[u]; i < csr.offsets[u + 1]; i++){
+                    int y = component[csr.targets[i]];
+                    if (y != x && seen[y] != x){
+                        seen[y] = x;
+                        targets[count++] = y;
+                    }
+                }
+            }
+            offsets[x + 1] = count;
+        }
+        targets = Arrays.copyOf(targets, count);
+
+        long[][] closure = null;
+        if (c <= CLOSURE_LIMIT){
+            // Component ids are in reverse topological order: an edge goes from
+            // a higher id to a lower one, so successors are finished first
+            int words = (c + 63) >>> 6;
+            closure = new long[c][words];
+            for (int x = 0; x < c; x++){
+                long[] row = closure[x];
+                row[x >>> 6] |= 1L << x;
+                for (int i = offsets[x]; i < offsets[x + 1]; i++){
+                    long[] reached = closure[targets[i]];
+                    for (int k = 0; k < words; k++){
+                        row[k] |= reached[k];
+                    }
+                }
+            }
+        }
+
+        // Post-order intervals; successors have lower ids and are labeled first
+        int[] post = new int[c];
+        int[] treeLow = new int[c];
+        int[] low = new int[c];
+        Arrays.fill(post, -1);
+        int[] nextEdge = new int[c];
+        int[] callStack = new int[c];
+        int counter = 0;
+        for (int root = c - 1; root >= 0; root--){
+            if (post[root] != -1){
+                continue;
+            }
+            int depth = 0;
+            callStack[depth++] = root;
+            nextEdge[root] = offsets[root];
+            treeLow[root] = counter;
+            post[root] = -2;
+            while (depth > 0){
+                int x = callStack[depth - 1];
+                if (nextEdge[x] < offsets[x + 1]){
+                    int y = targets[nextEdge[x]++];
+                    if (post[y] == -1){
+                        treeLow[y] = counter;
+                        post[y] = -2;
+                        nextEdge[y] = offsets[y];
+                        callStack[depth++] = y;
+                    }
+                } else {
+                    depth--;
+                    post[x] = counter++;
+                    // A DAG has no back edges, so every successor is labeled by now
+                    int smallest = treeLow[x];
+                    for (int i = offsets[x]; i < offsets[x + 1]; i++){
+                        smallest = Math.min(smallest, low[targets[i]]);
+                    }
+                    low[x] = smallest;
+                }
+            }
+        }
+        return new Labels(n, csr.getEdges(), component, offsets, targets, closure,
+                post, treeLow, low, System.nanoTime() - begin);
+    }
+
+    public static void main(String[] args) {
+        Graph gh = new AdjacencyList();
+        gh.addVertices(6);
+        gh.addEdges(0, 1);
+        gh.addEdges(1, 2);
+        gh.addEdges(2, 0);
+        gh.addEdges(2, 3);
+        gh.addEdges(4, 5);
+
+        ReachabilityIndex index = new ReachabilityIndex(gh);
+        System.out.println("Vertex 3 should be reachable from 1: " + index.reachable(1, 3));
+        System.out.println("Vertex 5 should not be reachable from 0: " + index.reachable(0, 5));
+        gh.addEdges(3, 4);
+        System.out.println("Vertex 5 should be reachable from 0 after adding 3 -> 4: " + index.reachable(0, 5));
+        System.out.println("Components: " + index.componentCount() + ", build time: "
+                + index.buildNanos() / 1000 + " us, memory: " + index.memoryBytes() + " bytes");
+    }
+}
@@ -0,0 +1,399 @@
+package Graphs;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.stream.IntStream;
+
+/**
+ * A class that implements single-source shortest paths over weighted edges.
+ *
+ * Both algorithms run on a CSR snapshot of the Graph and need
+ * non-negative weights; unweighted edges weigh 1.
+ * - dijkstra uses an indexed binary heap over primitive arrays,
+ *   with decrease-key instead of re-inserting boxed entries.
+ * - deltaStepping relaxes a whole bucket of vertices with distances
+ *   in [i*delta, (i+1)*delta) in parallel (Meyer and Sanders).
+ */
+public class ShortestPaths {
+
+    /**
+     * Distances and shortest-path tree from one source.
+     * Unreachable vertices have distance Double.POSITIVE_INFINITY
+     * and parent -1, and so does the parent of the source.
+     */
+    public static class Result {
+        private final double[] distance;
+        private final int[] parent;
+
+        Result(double[] distance, int[] parent){
+            this.distance = distance;
+            this.parent = parent;
+        }
+
+        public double[] getDistance() {
+            return distance;
+        }
+
+        public int[] getParent() {
+            return parent;
+        }
+
+        /**
+         * @param goal toFind vertex
+         * @return the vertices of a shortest path from the source to goal, or null if there is none
+         */
+        public int[] path(int goal){
+            if (distance[goal] == Double.POSITIVE_INFINITY){
+                return null;
+            }
+            int length = 0;
+            for (int v = goal; v != -1; v = parent[v]){
+                length++;
+            }
+            int[] path = new int[length];
+            for (int v = goal; v != -1; v = parent[v]){
+                path[--length] = v;
+            }
+            return path;
+        }
+    }
+
+    /**
+     * Dijkstra's algorithm.
+     * @param graph the Graph to search
+     * @param source start vertex
+     * @return distances and shortest-path tree from source
+     */
+    public static Result dijkstra(Graph graph, int source){
+        CsrGraph csr = snapshot(graph, source);
+        int n = csr.getVertices();
+        double[] distance = new double[n];
+        int[] parent = new int[n];
+        Arrays.fill(distance, Double.POSITIVE_INFINITY);
+        Arrays.fill(parent, -1);
+        distance[source] = 0;
+        IndexedMinHeap heap = new IndexedMinHeap(n);
+        heap.push(source, 0);
+        while (!heap.isEmpty()){
+            int u = heap.pop();
+            for (int i = csr.offsets[u]; i < csr.offsets[u + 1]; i++){
+                int v = csr.targets[i];
+                double candidate = distance[u] + weight(csr, i);
+                if (candidate < distance[v]){
+                    distance[v] = candidate;
+                    parent[v] = u;
+                    heap.pushOrDecrease(v, candidate);
+                }
+            }
+        }
+        return new Result(distance, parent);
+    }
+
+    /**
+     * Parallel delta-stepping with delta = (largest weight) / (average out-degree),
+     * the usual choice for random graphs.
+     * @param graph the Graph to search
+     * @param source start vertex
+     * @return distances and shortest-path tree from source
+     */
+    public static Result deltaStepping(Graph graph, int source){
+        CsrGraph csr = snapshot(graph, source);
+        double maxWeight = 0;
+        for (int i = 0; i < csr.getEdges(); i++){
+            maxWeight = Math.max(maxWeight, weight(csr, i));
+        }
+        double averageDegree = Math.max(1.0, (double) csr.getEdges() / Math.max(1, csr.getVertices()));
+        double delta = maxWeight > 0 ? maxWeight / averageDegree : 1.0;
+        return deltaStepping(csr, source, delta);
+    }
+
+    /**
+     * Parallel delta-stepping.
+     * Vertices wait in buckets of width delta. The lowest non-empty bucket is
+     * emptied in rounds: its vertices relax their light edges (weight <= delta)
+     * in parallel, which may refill it. When it stays empty, the heavy edges of
+     * all vertices it held are relaxed once, in parallel.
+     * Distances are improved with a CAS on their bit pattern, which orders
+     * non-negative doubles the same way as longs.
+     *
+     * @param graph the Graph to search
+     * @param source start vertex
+     * @param delta bucket width, larger means more parallelism and more re-relaxing
+     * @return distances and shortest-path tree from source
+     */
+    public static Result deltaStepping(Graph graph, int source, double delta){
+        if (!(delta > 0)){
+            throw new IllegalArgumentException("delta must be positive: " + delta);
+        }
+        CsrGraph csr = snapshot(graph, source);
+        int n = csr.getVertices();
+        AtomicLongArray distance = new AtomicLongArray(n);
+        long infinity = Double.doubleToLongBits(Double.POSITIVE_INFINITY);
+        for (int v = 0; v < n; v++){
+            distance.set(v, infinity);
+        }
+        distance.set(source, Double.doubleToLongBits(0));
+        List<IntBuffer> buckets = new ArrayList<IntBuffer>();
+        bucket(buckets, 0).add(source);
+        // round[v] == r once v is in the frontier of round r
+        int[] round = new int[n];
+        int rounds = 0;
+        // settledIn[v] == i + 1 once v was taken out of bucket i
+        int[] settledIn = new int[n];
+
+        for (int i = 0; i < buckets.size(); i++){
+            IntBuffer settled = new IntBuffer();
+            while (buckets.get(i) != null && buckets.get(i).size > 0){
+                IntBuffer bucket = buckets.get(i);
+                buckets.set(i, null);
+                rounds++;
+                // Skip repeats, and entries whose distance has moved on to a lower bucket
+                IntBuffer frontier = new IntBuffer();
+                for (int k = 0; k < bucket.size; k++){
+                    int v = bucket.items[k];
+                    if (round[v] != rounds && bucketIndex(distance, v, delta) == i){
+                        round[v] = rounds;
+                        frontier.add(v);
+                        if (settledIn[v] != i + 1){
+                            settledIn[v] = i + 1;
+                            settled.add(v);
+                        }
+                    }
+                }
+                rebucket(buckets, distance, delta, relax(csr, distance, frontier, delta, true));
+            }
+            rebucket(buckets, distance, delta, relax(csr, distance, settled, delta, false));
+        }
+
+        double[] result = new double[n];
+        for (int v = 0; v < n; v++){
+            result[v] = Double.longBitsToDouble(distance.get(v));
+        }
+        return new Result(result, tightTree(csr, source, result));
+    }
+
+    /**
+     * Relax the light or heavy edges of the given vertices in parallel.
+     * @return the end points whose distance went down, possibly with repeats
+     */
+    private static int[] relax(CsrGraph csr, AtomicLongArray distance, IntBuffer vertices,
+                               double delta, boolean light){
+        return IntStream.range(0, vertices.size).parallel().flatMap(k -> {
+            int u = vertices.items[k];
+            double du = Double.longBitsToDouble(distance.get(u));
+            int[] improved = null;
+            int count = 0;
+            for (int i = csr.offsets[u]; i < csr.offsets[u + 1]; i++){
+                double w = weight(csr, i);
+                if ((w <= delta) != light){
+                    continue;
+                }
+                int v = csr.targets[i];
+                long candidate = Double.doubleToLongBits(du + w);
+                while (true){
+                    long old = distance.get(v);
+                    if (candidate >= old){
+                        break;
+                    }
+                    if (distance.compareAndSet(v, old, candidate)){
+                        if (improved == null){
+                            improved = new int[csr.offsets[u + 1] - i];
+                        }
+                        improved[count++] = v;
+                        break;
+                    }
+                }
+            }
+            return count == 0 ? IntStream.empty() : IntStream.of(improved).limit(count);
+        }).toArray();
+    }
+
+    private static void rebucket(List<IntBuffer> buckets, AtomicLongArray distance, double delta, int[] improved){
+        for (int v: improved){
+            bucket(buckets, bucketIndex(distance, v, delta)).add(v);
+        }
+    }
+
+    private static int bucketIndex(AtomicLongArray distance, int v, double delta){
+        return (int) Math.min(Integer.MAX_VALUE - 1, Double.longBitsToDouble(distance.get(v)) / delta);
+    }
+
+    private static IntBuffer bucket(List<IntBuffer> buckets, int i){
+        while (buckets.size() <= i){
+            buckets.add(null);
+        }
+        if (buckets.get(i) == null){
+            buckets.set(i, new IntBuffer());
+        }
+        return buckets.get(i);
+    }
+
+    /**
+     * Parents from a BFS over tight edges (distance[u] + w == distance[v]).
+     * Parallel relaxations can finish in any order, so parents are picked
+     * afterwards; the BFS keeps zero-weight cycles out of the tree.
+     */
+    private static int[] tightTree(CsrGraph csr, int source, double[] distance){
+        int n = csr.getVertices();
+        int[] parent = new int[n];
+        Arrays.fill(parent, -1);
+        boolean[] visited = new boolean[n];
+        int[] queue = new int[n];
+        int head = 0, tail = 0;
+        queue[tail++] = source;
+        visited[source] = true;
+        while (head < tail){
+            int u = queue[head++];
+            for (int i = csr.offsets[u]; i < csr.offsets[u + 1]; i++){
+                int v = csr.targets[i];
+                if (!visited[v] && distance[u] + weight(csr, i) == distance[v]){
+                    visited[v] = true;
+                    parent[v] = u;
+                    queue[tail++] = v;
+                }
+            }
+        }
+        return parent;
+    }
+
+    private static CsrGraph snapshot(Graph graph, int source){
+        CsrGraph csr = graph.toCsr();
+        if (source < 0 || source >= csr.getVertices()){
+            throw new IndexOutOfBoundsException();
+        }
+        if (csr.weights != null){
+            for (double w: csr.weights){
+                if (!(w >= 0)){
+                    throw new IllegalArgumentException("Edge weights must be non-negative: " + w);
+                }
+            }
+        }
+        return csr;
+    }
+
+    private static double weight(CsrGraph csr, int edge){
+        return csr.weights == null ? 1.0 : csr.weights[edge];
+    }
+
+    /**
+     * A growable int array.
+     */
+    private static class IntBuffer {
+        int[] items = new int[16];
+        int size;
+
+        void add(int value){
+            if (size == items.length){
+                items = Arrays.copyOf(items, size * 2);
+            }
+            items[size++] = value;
+        }
+    }
+
+    /**
+     * A binary min-heap of vertices keyed by distance.
+     * position[v] is v's index in heap, or -1, so a key can be decreased in place.
+     */
+    private static class IndexedMinHeap {
+        private final int[] heap;
+        private final int[] position;
+        private final double[] key;
+        private int size;
+
+        IndexedMinHeap(int capacity){
+            heap = new int[capacity];
+            position = new int[capacity];
+            key = new double[capacity];
+            Arrays.fill(position, -1);
+        }
+
+        boolean isEmpty(){
+            return size == 0;
+        }
+
+        void push(int v, double k){
+            key[v] = k;
+            heap[size] = v;
+            position[v] = size;
+            siftUp(size++);
+        }
+
+        void pushOrDecrease(int v, double k){
+            if (position[v] == -1){
+                push(v, k);
+            } else {
+                key[v] = k;
+                siftUp(position[v]);
+            }
+        }
+
+        int pop(){
+            int top = heap[0];
+            position[top] = -1;
+            size--;
+            if (size > 0){
+                heap[0] = heap[size];
+                position[heap[0]] = 0;
+                siftDown(0);
+            }
+            return top;
+        }
+
+        private void siftUp(int i){
+            int v = heap[i];
+            while (i > 0){
+                int p = (i - 1) >>> 1;
+                if (key[heap[p]] <= key[v]){
+                    break;
+                }
+                heap[i] = heap[p];
+                position[heap[i]] = i;
+                i = p;
+            }
+            heap[i] = v;
+            position[v] = i;
+        }
+
+        private void siftDown(int i){
+            int v = heap[i];
+            while (true){
+                int child = 2 * i + 1;
+                if (child >= size){
+                    break;
+                }
+                if (child + 1 < size && key[heap[child + 1]] < key[heap[child]]){
+                    child++;
+                }
+                if (key[heap[child]] >= key[v]){
+                    break;
+                }
+                heap[i] = heap[child];
+                position[heap[i]] = i;
+                i = child;
+            }
+            heap[i] = v;
+            position[v] = i;
+        }
+    }
+
+    public static void main(String[] args) {
+        Graph gh = new AdjacencyList();
+        for (int i = 0; i < 5; i++){
+            gh.addVertex();
+        }
+        gh.addEdges(0, 1, 4.0);
+        gh.addEdges(0, 2, 1.0);
+        gh.addEdges(2, 1, 2.0);
+        gh.addEdges(1, 3, 1.0);
+        gh.addEdges(2, 3, 5.0);
+
+        Result dijkstra = dijkstra(gh, 0);
+        System.out.println("Distance to Vertex 3 should be 4.0: " + dijkstra.getDistance()[3]);
+        System.out.println("Path should be 0 2 1 3: " + Arrays.toString(dijkstra.path(3)));
+        System.out.println("Path should not be found: " + Arrays.toString(dijkstra.path(4)));
+        Result deltaStepping = deltaStepping(gh, 0);
+        System.out.println("Delta-stepping path should be 0 2 1 3: " + Arrays.toString(deltaStepping.path(3)));
+    }
+}
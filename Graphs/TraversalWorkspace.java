@@ -0,0 +1,269 @@
+package Graphs;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * A class that holds reusable state for DFS and BFS queries.
+ *
+ * Graph.depthFirstSearch and Graph.breadthFirstSearch allocate a Stack/Queue,
+ * a HashSet and a HashMap on every call. A workspace keeps int arrays instead:
+ * visitedEpoch[v] == epoch means v was visited by the current query, so
+ * starting a new query only increments epoch instead of clearing the arrays.
+ * After the arrays have grown to the Graph's size, reachable() allocates nothing
+ * and the path queries allocate only the returned path.
+ *
+ * A workspace is not thread-safe: use one per thread.
+ */
+public class TraversalWorkspace {
+    // Epoch of the query that last visited each vertex
+    private int[] visitedEpoch;
+    // Vertex from which each vertex was discovered, valid if it's visited
+    private int[] parent;
+    // Used as the BFS queue or the DFS stack; every vertex enters it at most once
+    private int[] frontier;
+    // goalEpoch[v] == epoch while v is a goal the current query hasn't reached; made on first use
+    private int[] goalEpoch;
+    // Epoch of the current query
+    private int epoch;
+
+    // State read by the neighbor visitor
+    private int currentVertex;
+    private int size;
+    // Created once so that neighbor scans don't allocate a lambda per vertex
+    private final IntConsumer discover = this::discover;
+
+    public TraversalWorkspace(){
+        this(16);
+    }
+
+    /**
+     * @param capacity number of vertices to size the arrays for.
+     */
+    public TraversalWorkspace(int capacity){
+        visitedEpoch = new int[capacity];
+        parent = new int[capacity];
+        frontier = new int[capacity];
+        epoch = 0;
+    }
+
+    /**
+     * Start a new query on a Graph with n vertices.
+     */
+    private void reset(int n){
+        if (n > visitedEpoch.length){
+            int capacity = Math.max(n, visitedEpoch.length * 2);
+            visitedEpoch = new int[capacity];
+            parent = new int[capacity];
+            frontier = new int[capacity];
+            goalEpoch = null;
+            epoch = 0;
+        }
+        epoch++;
+        if (epoch == Integer.MAX_VALUE){
+            // Epochs wrapped around: clear the marks once and start over
+            Arrays.fill(visitedEpoch, 0);
+            if (goalEpoch != null){
+                Arrays.fill(goalEpoch, 0);
+            }
+            epoch = 1;
+        }
+        size = 0;
+    }
+
+    private void discover(int newlyDiscoveredVertex){
+        if (visitedEpoch[newlyDiscoveredVertex] != epoch){
+            visitedEpoch[newlyDiscoveredVertex] = epoch;
+            // mapping newly discovered vertex to its previous vertex
+            parent[newlyDiscoveredVertex] = currentVertex;
+            frontier[size++] = newlyDiscoveredVertex;
+        }
+    }
+
+    private void begin(Graph graph, int start, int goal){
+        int n = graph.getVertices();
+        if (start < 0 || start >= n || goal < 0 || goal >= n){
+            throw new IndexOutOfBoundsException();
+        }
+        reset(n);
+        visitedEpoch[start] = epoch;
+        parent[start] = -1;
+        frontier[size++] = start;
+    }
+
+    /**
+     * BFS from start to goal.
+     *
+     * @param graph the Graph to search
+     * @param start start vertex
+     * @param goal toFind vertex
+     * @return the vertices of a shortest path from start to goal, or null if there is none
+     */
+    public int[] breadthFirstPath(Graph graph, int start, int goal){
+        return breadthFirst(graph, start, goal) ? path(goal) : null;
+    }
+
+    /**
+     * DFS from start to goal.
+     *
+     * @param graph the Graph to search
+     * @param start start vertex
+     * @param goal toFind vertex
+     * @return the vertices of a path from start to goal, or null if there is none
+     */
+    public int[] depthFirstPath(Graph graph, int start, int goal){
+        begin(graph, start, goal);
+        // frontier is used as a stack
+        while (size > 0){
+            currentVertex = frontier[--size];
+            if (currentVertex == goal){
+                return path(goal);
+            }
+            graph.forEachNeighbor(currentVertex, discover);
+        }
+        // There is no path to start vertex to end vertex
+        return null;
+    }
+
+    /**
+     * Check whether goal can be reached from start, without allocating.
+     *
+     * @param graph the Graph to search
+     * @param start start vertex
+     * @param goal toFind vertex
+     * @return true if there is a path from start to goal
+     */
+    public boolean reachable(Graph graph, int start, int goal){
+        return breadthFirst(graph, start, goal);
+    }
+
+    /**
+     * BFS from start with a budget. It stops when goal is visited (pass -1 to
+     * search everything reachable), after maxVisited vertices have been visited,
+     * or once System.nanoTime() passes deadline. Afterwards visited() tells
+     * which vertices the search reached.
+     *
+     * @param graph the Graph to search
+     * @param start start vertex
+     * @param goal toFind vertex, or -1
+     * @param maxVisited most vertices to visit
+     * @param deadline System.nanoTime() value at which to give up
+     * @return false if the search gave up before finding goal or running out of vertices
+     */
+    public boolean searchWithin(Graph graph, int start, int goal, int maxVisited, long deadline){
+        begin(graph, start, goal == -1 ? start : goal);
+        int head = 0;
+        while (head < size){
+            currentVertex = frontier[head++];
+            if (currentVertex == goal){
+                return true;
+            }
+            // Reading the clock costs more than visiting a vertex, so only look now and then
+            if (size >= maxVisited || ((head & 63) == 0 && System.nanoTime() - deadline > 0)){
+                return false;
+            }
+            graph.forEachNeighbor(currentVertex, discover);
+        }
+        return true;
+    }
+
+    /**
+     * BFS from start with a budget that stops once every goal is visited,
+     * after maxVisited vertices have been visited, or once System.nanoTime()
+     * passes deadline. Afterwards visited() tells which goals the search reached.
+     *
+     * @param graph the Graph to search
+     * @param start start vertex
+     * @param goals toFind vertices, repeats allowed
+     * @param maxVisited most vertices to visit
+     * @param deadline System.nanoTime() value at which to give up
+     * @return false if the search gave up before finding all goals or running out of vertices
+     */
+    public boolean searchWithin(Graph graph, int start, int[] goals, int maxVisited, long deadline){
+        begin(graph, start, start);
+        if (goalEpoch == null){
+            goalEpoch = new int[visitedEpoch.length];
+        }
+        int remaining = 0;
+        for (int goal: goals){
+            if (goal < 0 || goal >= graph.getVertices()){
+                throw new IndexOutOfBoundsException();
+            }
+            if (goalEpoch[goal] != epoch){
+                goalEpoch[goal] = epoch;
+                remaining++;
+            }
+        }
+        int head = 0;
+        while (head < size){
+            currentVertex = frontier[head++];
+            if (goalEpoch[currentVertex] == epoch && --remaining == 0){
+                return true;
+            }
+            // Reading the clock costs more than visiting a vertex, so only look now and then
+            if (size >= maxVisited || ((head & 63) == 0 && System.nanoTime() - deadline > 0)){
+                return false;
+            }
+            graph.forEachNeighbor(currentVertex, discover);
+        }
+        return true;
+    }
+
+    /**
+     * @param v Index of vertex.
+     * @return true if the last query visited v
+     */
+    public boolean visited(int v){
+        return v < visitedEpoch.length && visitedEpoch[v] == epoch;
+    }
+
+    private boolean breadthFirst(Graph graph, int start, int goal){
+        begin(graph, start, goal);
+        // frontier is used as a queue: vertices are never removed, only passed by head
+        int head = 0;
+        while (head < size){
+            currentVertex = frontier[head++];
+            if (currentVertex == goal){
+                return true;
+            }
+            graph.forEachNeighbor(currentVertex, discover);
+        }
+        // There is no path to start vertex to end vertex
+        return false;
+    }
+
+    /**
+     * Follow the parents from goal back to the start of the last query.
+     */
+    private int[] path(int goal){
+        int length = 0;
+        for (int v = goal; v != -1; v = parent[v]){
+            length++;
+        }
+        int[] path = new int[length];
+        for (int v = goal; v != -1; v = parent[v]){
+            path[--length] = v;
+        }
+        return path;
+    }
+
+    public static void main(String[] args) {
+        Graph gh = new AdjacencyList();
+        for (int i = 0; i < 13; i++){
+            gh.addVertex();
+        }
+        gh.addEdges(0, 1);
+        gh.addEdges(0, 2);
+        gh.addEdges(2, 3);
+        gh.addEdges(3, 4);
+        gh.addEdges(3, 5);
+        gh.addEdges(5, 10);
+        gh.addEdges(5, 9);
+
+        TraversalWorkspace workspace = new TraversalWorkspace(gh.getVertices());
+        System.out.println("Path should be 0 2 3 5 10: " + Arrays.toString(workspace.breadthFirstPath(gh, 0, 10)));
+        System.out.println("Path should be 0 2 3 5 9: " + Arrays.toString(workspace.depthFirstPath(gh, 0, 9)));
+        System.out.println("Path should not be found: " + Arrays.toString(workspace.breadthFirstPath(gh, 1, 3)));
+        System.out.println("Vertex 4 should be reachable: " + workspace.reachable(gh, 0, 4));
+    }
+}
@@ -0,0 +1,261 @@
+package Graphs;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.stream.IntStream;
+
+/**
+ * A class that counts triangles and local clustering coefficients.
+ *
+ * Edge directions, parallel edges and self-loops are ignored: u, v, w form a
+ * triangle when each pair is joined by an edge in either direction. The local
+ * clustering coefficient of v is the fraction of pairs of its neighbors that
+ * are joined, triangles(v) / (d(d-1)/2) with d the number of distinct neighbors.
+ *
+ * - Sparse graphs: neighbor lists become sorted int arrays and every edge is
+ *   oriented from the lower-degree to the higher-degree end point. Each
+ *   triangle is then found exactly once, by intersecting the oriented lists
+ *   of one of its edges, and hubs are never scanned from. Intersections merge
+ *   lists of similar length and gallop through the longer one otherwise.
+ * - AdjacencyMatrix: triangles at v are counted by AND-ing v's row with the
+ *   rows of its neighbors, 64 cells per operation.
+ *
+ * Vertices are processed in parallel.
+ */
+public class Triangles {
+    // Gallop instead of merging when one list is this many times longer
+    private static final int GALLOP_RATIO = 16;
+
+    /**
+     * Triangle counts and clustering coefficients of every vertex.
+     */
+    public static class Result {
+        private final long[] triangles;
+        private final double[] clustering;
+
+        Result(long[] triangles, double[] clustering){
+            this.triangles = triangles;
+            this.clustering = clustering;
+        }
+
+        /**
+         * @return triangles[v] is the number of triangles containing v
+         */
+        public long[] getTriangles() {
+            return triangles;
+        }
+
+        /**
+         * @return clustering[v] is the local clustering coefficient of v,
+         * 0 for vertices with fewer than two neighbors
+         */
+        public double[] getClustering() {
+            return clustering;
+        }
+
+        /**
+         * @return number of triangles in the Graph
+         */
+        public long total(){
+            long sum = 0;
+            for (long count: triangles){
+                sum += count;
+            }
+            // every triangle is counted at its three corners
+            return sum / 3;
+        }
+    }
+
+    /**
+     * @param graph the Graph to analyse
+     * @return triangle counts and clustering coefficients of all vertices
+     */
+    public static Result count(Graph graph){
+        if (graph instanceof AdjacencyMatrix){
+            return countDense((AdjacencyMatrix) graph);
+        }
+        return countSparse(graph.toCsr());
+    }
+
+    private static Result countSparse(CsrGraph csr){
+        int n = csr.getVertices();
+        int[][] neighbors = new int[n][];
+        IntStream.range(0, n).parallel().forEach(v -> neighbors[v] = undirectedNeighbors(csr, v));
+
+        // Keep only the neighbors of higher rank: larger degree, or same degree and larger index
+        int[][] higher = new int[n][];
+        IntStream.range(0, n).parallel().forEach(u -> {
+            int[] all = neighbors[u];
+            int[] kept = new int[all.length];
+            int count = 0;
+            for (int v: all){
+                if (ranksBelow(neighbors, u, v)){
+                    kept[count++] = v;
+                }
+            }
+            higher[u] = Arrays.copyOf(kept, count);
+        });
+
+        AtomicLongArray counts = new AtomicLongArray(n);
+        IntStream.range(0, n).parallel().forEach(u -> {
+            int[] a = higher[u];
+            int[] common = new int[a.length];
+            long found = 0;
+            for (int v: a){
+                int k = intersect(a, higher[v], common);
+                for (int i = 0; i < k; i++){
+                    counts.incrementAndGet(common[i]);
+                }
+                if (k > 0){
+                    counts.addAndGet(v, k);
+                    found += k;
+                }
+            }
+            if (found > 0){
+                counts.addAndGet(u, found);
+            }
+        });
+
+        long[] triangles = new long[n];
+        double[] clustering = new double[n];
+        IntStream.range(0, n).parallel().forEach(v -> {
+            triangles[v] = counts.get(v);
+            clustering[v] = coefficient(triangles[v], neighbors[v].length);
+        });
+        return new Result(triangles, clustering);
+    }
+
+    private static boolean ranksBelow(int[][] neighbors, int u, int v){
+        int du = neighbors[u].length, dv = neighbors[v].length;
+        return du < dv || (du == dv && u < v);
+    }
+
+    /**
+     * Sorted distinct in- and out-neighbors of v, without v itself.
+     */
+    private static int[] undirectedNeighbors(CsrGraph csr, int v){
+        int[] all = new int[csr.outDegree(v) + csr.inDegree(v)];
+        int count = 0;
+        for (int i = csr.offsets[v]; i < csr.offsets[v + 1]; i++){
+            all[count++] = csr.targets[i];
+        }
+        for (int i = csr.inOffsets[v]; i < csr.inOffsets[v + 1]; i++){
+            all[count++] = csr.sources[i];
+        }
+        Arrays.sort(all);
+        int distinct = 0;
+        for (int i = 0; i < count; i++){
+            if (all[i] != v && (distinct == 0 || all[distinct - 1] != all[i])){
+                all[distinct++] = all[i];
+            }
+        }
+        return Arrays.copyOf(all, distinct);
+    }
+
+    /**
+     * Intersect two sorted arrays.
+     * @param common receives the common values; must be as long as the shorter array
+     * @return the number of common values
+     */
+    private static int intersect(int[] a, int[] b, int[] common){
+        if (a.length > b.length){
+            int[] swap = a;
+            a = b;
+            b = swap;
+        }
+        if ((long) a.length * GALLOP_RATIO < b.length){
+            return gallop(a, b, common);
+        }
+        int i = 0, j = 0, k = 0;
+        while (i < a.length && j < b.length){
+            if (a[i] < b[j]){
+                i++;
+            } else if (a[i] > b[j]){
+                j++;
+            } else {
+                common[k++] = a[i];
+                i++;
+                j++;
+            }
+        }
+        return k;
+    }
+
+    /**
+     * For each value of the short array, find it in the long one by doubling
+     * the step from the last position and then binary searching.
+     */
+    private static int gallop(int[] small, int[] large, int[] common){
+        int k = 0;
+        int low = 0;
+        for (int x: small){
+            int step = 1;
+            int high = low;
+            while (high < large.length && large[high] < x){
+                low = high + 1;
+                high += step;
+                step <<= 1;
+            }
+            int found = Arrays.binarySearch(large, low, Math.min(high + 1, large.length), x);
+            if (found >= 0){
+                common[k++] = x;
+                low = found + 1;
+            } else {
+                low = -found - 1;
+            }
+            if (low >= large.length){
+                break;
+            }
+        }
+        return k;
+    }
+
+    private static Result countDense(AdjacencyMatrix matrix){
+        int n = matrix.getVertices();
+        int words = (n + 63) >>> 6;
+        long[] rows = matrix.undirectedRows();
+        long[] triangles = new long[n];
+        double[] clustering = new double[n];
+        IntStream.range(0, n).parallel().forEach(u -> {
+            int rowU = u * words;
+            long pairs = 0;
+            int degree = 0;
+            for (int w = 0; w < words; w++){
+                long word = rows[rowU + w];
+                degree += Long.bitCount(word);
+                while (word != 0){
+                    int rowV = ((w << 6) + Long.numberOfTrailingZeros(word)) * words;
+                    for (int x = 0; x < words; x++){
+                        pairs += Long.bitCount(rows[rowU + x] & rows[rowV + x]);
+                    }
+                    word &= word - 1;
+                }
+            }
+            // each triangle at u is seen from both of its other corners
+            triangles[u] = pairs / 2;
+            clustering[u] = coefficient(triangles[u], degree);
+        });
+        return new Result(triangles, clustering);
+    }
+
+    private static double coefficient(long triangles, int degree){
+        return degree < 2 ? 0 : 2.0 * triangles / ((double) degree * (degree - 1));
+    }
+
+    public static void main(String[] args) {
+        Graph gh = new AdjacencyList();
+        gh.addVertices(5);
+        // triangles 0 1 2 and 1 2 3, and 3 -> 4 hanging off
+        gh.addEdges(0, 1);
+        gh.addEdges(1, 2);
+        gh.addEdges(2, 0);
+        gh.addEdges(2, 3);
+        gh.addEdges(3, 1);
+        gh.addEdges(3, 4);
+
+        Result result = count(gh);
+        System.out.println("Triangles should be 2: " + result.total());
+        System.out.println("Per vertex should be [1, 2, 2, 1, 0]: " + Arrays.toString(result.getTriangles()));
+        System.out.println("Clustering: " + Arrays.toString(result.getClustering()));
+    }
+}
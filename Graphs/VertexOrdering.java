@@ -0,0 +1,266 @@
+package Graphs;
+
+import java.util.Arrays;
+
+/**
+ * A class that renumbers the vertices of a Graph for better cache locality.
+ *
+ * Vertex indices are handed out in insertion order, so the neighbors of a vertex
+ * can be anywhere in the arrays. Renumbering vertices so that neighbors get close
+ * indices makes traversals touch fewer cache lines. Each ordering returns a
+ * permutation oldToNew, with oldToNew[v] the new index of vertex v:
+ * - degreeOrder: highest degree first, so hubs share the first cache lines.
+ * - bfsOrder: vertices in the order an undirected BFS reaches them.
+ * - reverseCuthillMcKee: BFS that visits low-degree neighbors first, reversed;
+ *   it keeps the nonzeros of the adjacency matrix close to the diagonal.
+ * relabel then builds the renumbered Graph.
+ */
+public class VertexOrdering {
+
+    /**
+     * A Graph whose vertices were renumbered, with the mapping in both directions.
+     */
+    public static class Relabeled {
+        private final CsrGraph graph;
+        private final int[] oldToNew;
+        private final int[] newToOld;
+
+        Relabeled(CsrGraph graph, int[] oldToNew, int[] newToOld){
+            this.graph = graph;
+            this.oldToNew = oldToNew;
+            this.newToOld = newToOld;
+        }
+
+        public CsrGraph getGraph() {
+            return graph;
+        }
+
+        public int[] getOldToNew() {
+            return oldToNew;
+        }
+
+        public int[] getNewToOld() {
+            return newToOld;
+        }
+    }
+
+    /**
+     * Order vertices by total degree, highest first; ties keep their old order.
+     * @param graph the Graph to order
+     * @return oldToNew permutation
+     */
+    public static int[] degreeOrder(Graph graph){
+        return rankByDegree(totalDegrees(graph), true);
+    }
+
+    private static int[] totalDegrees(Graph graph){
+        int[] degrees = new int[graph.getVertices()];
+        for (int v = 0; v < degrees.length; v++){
+            degrees[v] = graph.inDegree(v) + graph.outDegree(v);
+        }
+        return degrees;
+    }
+
+    /**
+     * Counting sort of the vertices by degree; ties keep their old order.
+     * @param degrees degree of each vertex
+     * @param highestFirst true for decreasing degree, false for increasing
+     * @return rank[v], the position of v in the sorted order
+     */
+    private static int[] rankByDegree(int[] degrees, boolean highestFirst){
+        int n = degrees.length;
+        int maxDegree = 0;
+        for (int degree: degrees){
+            maxDegree = Math.max(maxDegree, degree);
+        }
+        // start[k] is the first position of the k-th degree bucket
+        int[] start = new int[maxDegree + 2];
+        for (int v = 0; v < n; v++){
+            start[bucket(degrees[v], maxDegree, highestFirst) + 1]++;
+        }
+        for (int d = 0; d <= maxDegree; d++){
+            start[d + 1] += start[d];
+        }
+        int[] rank = new int[n];
+        for (int v = 0; v < n; v++){
+            rank[v] = start[bucket(degrees[v], maxDegree, highestFirst)]++;
+        }
+        return rank;
+    }
+
+    private static int bucket(int degree, int maxDegree, boolean highestFirst){
+        return highestFirst ? maxDegree - degree : degree;
+    }
+
+    /**
+     * Order vertices by an undirected BFS, starting again from the
+     * smallest unvisited vertex whenever a component is finished.
+     * @param graph the Graph to order
+     * @return oldToNew permutation
+     */
+    public static int[] bfsOrder(Graph graph){
+        CsrGraph csr = graph.toCsr();
+        return inverse(undirectedBfs(csr, false));
+    }
+
+    /**
+     * Reverse Cuthill-McKee ordering. Every component is searched from a
+     * vertex of smallest degree, neighbors are visited by increasing degree,
+     * and the whole order is reversed at the end.
+     * @param graph the Graph to order
+     * @return oldToNew permutation
+     */
+    public static int[] reverseCuthillMcKee(Graph graph){
+        CsrGraph csr = graph.toCsr();
+        int[] order = undirectedBfs(csr, true);
+        int n = order.length;
+        for (int i = 0; i < n / 2; i++){
+            int swap = order[i];
+            order[i] = order[n - 1 - i];
+            order[n - 1 - i] = swap;
+        }
+        return inverse(order);
+    }
+
+    /**
+     * BFS ignoring edge directions.
+     * @param byDegree start each component at a smallest-degree vertex and
+     *                 visit neighbors by increasing degree (Cuthill-McKee)
+     * @return vertices in visiting order
+     */
+    private static int[] undirectedBfs(CsrGraph csr, boolean byDegree){
+        int n = csr.getVertices();
+        boolean[] visited = new boolean[n];
+        int[] queue = new int[n];
+        int head = 0, tail = 0;
+        int[] roots;
+        if (byDegree){
+            // Smallest degree first, by the same counting sort as degreeOrder
+            roots = inverse(rankByDegree(totalDegrees(csr), false));
+        } else {
+            roots = new int[n];
+            for (int v = 0; v < n; v++){
+                roots[v] = v;
+            }
+        }
+        // Scratch space for the unvisited neighbors of one vertex
+        long[] batch = new long[16];
+        for (int root: roots){
+            if (visited[root]){
+                continue;
+            }
+            visited[root] = true;
+            queue[tail++] = root;
+            while (head < tail){
+                int u = queue[head++];
+                int count = 0;
+                int degree = degree(csr, u);
+                if (batch.length < degree){
+                    batch = new long[Math.max(degree, batch.length * 2)];
+                }
+                for (int i = csr.offsets[u]; i < csr.offsets[u + 1]; i++){
+                    count = collect(csr, csr.targets[i], visited, batch, count);
+                }
+                for (int i = csr.inOffsets[u]; i < csr.inOffsets[u + 1]; i++){
+                    count = collect(csr, csr.sources[i], visited, batch, count);
+                }
+                if (byDegree){
+                    // degree in the high half, vertex in the low half
+                    Arrays.sort(batch, 0, count);
+                }
+                for (int k = 0; k < count; k++){
+                    queue[tail++] = (int) batch[k];
+                }
+            }
+        }
+        return queue;
+    }
+
+    private static int collect(CsrGraph csr, int w, boolean[] visited, long[] batch, int count){
+        if (!visited[w]){
+            visited[w] = true;
+            batch[count++] = ((long) degree(csr, w) << 32) | w;
+        }
+        return count;
+    }
+
+    private static int degree(CsrGraph csr, int v){
+        return csr.outDegree(v) + csr.inDegree(v);
+    }
+
+    private static int[] inverse(int[] permutation){
+        int[] inverse = new int[permutation.length];
+        for (int i = 0; i < permutation.length; i++){
+            inverse[permutation[i]] = i;
+        }
+        return inverse;
+    }
+
+    /**
+     * Build a copy of the Graph with vertex v renamed to oldToNew[v].
+     * Each vertex's neighbors are stored in increasing order of their new index.
+     * @param graph the Graph to relabel
+     * @param oldToNew a permutation of 0 .. n-1
+     * @return the relabeled Graph and the mapping
+     */
+    public static Relabeled relabel(Graph graph, int[] oldToNew){
+        CsrGraph csr = graph.toCsr();
+        int n = csr.getVertices();
+        if (oldToNew.length != n){
+            throw new IllegalArgumentException("Permutation has " + oldToNew.length + " entries, Graph has " + n + " vertices");
+        }
+        int[] newToOld = new int[n];
+        Arrays.fill(newToOld, -1);
+        for (int v = 0; v < n; v++){
+            if (oldToNew[v] < 0 || oldToNew[v] >= n || newToOld[oldToNew[v]] != -1){
+                throw new IllegalArgumentException("Not a permutation");
+            }
+            newToOld[oldToNew[v]] = v;
+        }
+        int[] offsets = new int[n + 1];
+        for (int v = 0; v < n; v++){
+            offsets[v + 1] = offsets[v] + csr.outDegree(newToOld[v]);
+        }
+        int[] targets = new int[csr.getEdges()];
+        double[] weights = csr.weights == null ? null : new double[csr.getEdges()];
+        long[] row = new long[0];
+        for (int v = 0; v < n; v++){
+            int old = newToOld[v];
+            int degree = csr.outDegree(old);
+            if (row.length < degree){
+                row = new long[degree];
+            }
+            // new target in the high half, old edge position in the low half
+            for (int i = 0; i < degree; i++){
+                int edge = csr.offsets[old] + i;
+                row[i] = ((long) oldToNew[csr.targets[edge]] << 32) | edge;
+            }
+            Arrays.sort(row, 0, degree);
+            for (int i = 0; i < degree; i++){
+                targets[offsets[v] + i] = (int) (row[i] >>> 32);
+                if (weights != null){
+                    weights[offsets[v] + i] = csr.weights[(int) row[i]];
+                }
+            }
+        }
+        return new Relabeled(new CsrGraph(offsets, targets, weights), oldToNew, newToOld);
+    }
+
+    public static void main(String[] args) {
+        Graph gh = new AdjacencyList();
+        gh.addVertices(6);
+        gh.addEdges(0, 5);
+        gh.addEdges(5, 1);
+        gh.addEdges(1, 4);
+        gh.addEdges(4, 2);
+        gh.addEdges(2, 3);
+
+        int[] oldToNew = reverseCuthillMcKee(gh);
+        Relabeled relabeled = relabel(gh, oldToNew);
+        System.out.println("Old to new: " + Arrays.toString(oldToNew));
+        System.out.println("Edges of the path should join neighboring indices:");
+        for (int v = 0; v < 6; v++){
+            System.out.println(v + " -> " + relabeled.getGraph().getNeighbors(v));
+        }
+    }
+}
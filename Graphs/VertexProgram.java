@@ -0,0 +1,151 @@
+package Graphs;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * A per-vertex computation run by VertexProgramKernel.
+ *
+ * Every iteration, each vertex pulls the previous values of its in-neighbors
+ * and computes its new value. Values are doubles in flat arrays indexed by vertex.
+ * update is called for many vertices at once from different threads,
+ * so it may only write to state prepared in beforeIteration.
+ */
+public interface VertexProgram {
+
+    /**
+     * @param graph the Graph being analysed
+     * @param v Index of vertex.
+     * @return the value of v before the first iteration
+     */
+    double initialValue(CsrGraph graph, int v);
+
+    /**
+     * Called once before each iteration, from a task in the kernel's pool,
+     * so parallel streams started here run on that pool.
+     * @param graph the Graph being analysed
+     * @param previous values of all vertices after the last iteration
+     */
+    default void beforeIteration(CsrGraph graph, double[] previous){
+    }
+
+    /**
+     * @param graph the Graph being analysed
+     * @param v Index of vertex.
+     * @param previous values of all vertices after the last iteration
+     * @return the new value of v
+     */
+    double update(CsrGraph graph, int v, double[] previous);
+
+    /**
+     * PageRank with damping factor d: a vertex's rank is (1-d)/n plus d times
+     * the rank flowing in from its in-neighbors, each sending rank/out-degree.
+     * Vertices without out-edges spread their rank over all vertices.
+     */
+    class PageRank implements VertexProgram {
+        private final double damping;
+        // previous[u] / outDegree(u), filled before each iteration
+        private double[] contribution;
+        // Rank of vertices without out-edges, shared by every vertex
+        private double danglingShare;
+
+        public PageRank(){
+            this(0.85);
+        }
+
+        public PageRank(double damping){
+            this.damping = damping;
+        }
+
+        @Override
+        public double initialValue(CsrGraph graph, int v){
+            return 1.0 / graph.getVertices();
+        }
+
+        @Override
+        public void beforeIteration(CsrGraph graph, double[] previous){
+            int n = graph.getVertices();
+            if (contribution == null || contribution.length != n){
+                contribution = new double[n];
+            }
+            double[] share = contribution;
+            IntStream.range(0, n).parallel().forEach(u -> {
+                int degree = graph.outDegree(u);
+                share[u] = degree == 0 ? 0 : previous[u] / degree;
+            });
+            danglingShare = IntStream.range(0, n).parallel()
+                    .filter(u -> graph.outDegree(u) == 0)
+                    .mapToDouble(u -> previous[u]).sum() / n;
+        }
+
+        @Override
+        public double update(CsrGraph graph, int v, double[] previous){
+            double sum = danglingShare;
+            for (int i = graph.inOffsets[v]; i < graph.inOffsets[v + 1]; i++){
+                sum += contribution[graph.sources[i]];
+            }
+            return (1 - damping) / graph.getVertices() + damping * sum;
+        }
+    }
+
+    /**
+     * In-degree centrality: the in-degree of a vertex divided by n-1,
+     * the largest in-degree possible without parallel edges and self-loops.
+     * It's fixed after the first iteration.
+     */
+    class InDegreeCentrality implements VertexProgram {
+        @Override
+        public double initialValue(CsrGraph graph, int v){
+            return update(graph, v, null);
+        }
+
+        @Override
+        public double update(CsrGraph graph, int v, double[] previous){
+            int n = graph.getVertices();
+            return n <= 1 ? 0 : (double) graph.inDegree(v) / (n - 1);
+        }
+    }
+
+    /**
+     * Label propagation: every vertex starts with its own index as label and
+     * takes the most frequent label among itself and its in-neighbors,
+     * the smallest one on ties. Vertices that end with the same label form a community.
+     */
+    class LabelPropagation implements VertexProgram {
+        // Scratch space for the labels around one vertex
+        private final ThreadLocal<int[]> labels = ThreadLocal.withInitial(() -> new int[16]);
+
+        @Override
+        public double initialValue(CsrGraph graph, int v){
+            return v;
+        }
+
+        @Override
+        public double update(CsrGraph graph, int v, double[] previous){
+            int count = graph.inDegree(v) + 1;
+            int[] around = labels.get();
+            if (around.length < count){
+                around = new int[Math.max(count, around.length * 2)];
+                labels.set(around);
+            }
+            around[0] = (int) previous[v];
+            for (int i = graph.inOffsets[v], k = 1; i < graph.inOffsets[v + 1]; i++, k++){
+                around[k] = (int) previous[graph.sources[i]];
+            }
+            // After sorting, equal labels are next to each other
+            Arrays.sort(around, 0, count);
+            int best = around[0], bestRun = 0;
+            for (int start = 0, end; start < count; start = end){
+                end = start;
+                while (end < count && around[end] == around[start]){
+                    end++;
+                }
+                if (end - start > bestRun){
+                    bestRun = end - start;
+                    best = around[start];
+                }
+            }
+            return best;
+        }
+    }
+}
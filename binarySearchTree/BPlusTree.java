@@ -0,0 +1,257 @@
+package binarySearchTree;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * A class that implements an ordered set as a B+ tree
+ *
+ * BinarySearchTree keeps one key per node, so a lookup follows one pointer,
+ * and usually misses the cache once, per level: about 27 levels for 100M keys.
+ * A B+ tree keeps up to maxKeys keys per node in one array and searches it with
+ * binary search, so the tree is only log(n) / log(maxKeys) levels deep: with
+ * 128 keys per node, which are at least half full, 100M keys need 4 or 5 levels.
+ * The keys are references, so each comparison still reads the key object.
+ * All keys are stored in the leaves, which are linked left to right,
+ * so a range scan walks the leaves without going back up.
+ * Inner nodes only hold separators: child i holds the keys from keys[i-1]
+ * (inclusive) up to keys[i] (exclusive).
+ */
+public class BPlusTree<E extends Comparable<? super E>> {
+    private final int maxKeys;
+    private Node root;
+    private int size;
+
+    private static class Node {
+        // One slot more than maxKeys so a node can overflow before it's split
+        final Object[] keys;
+        int count;
+        // null for leaves
+        final Node[] children;
+        // Next leaf to the right, for range scans
+        Node next;
+
+        Node(int maxKeys, boolean leaf) {
+            this.keys = new Object[maxKeys + 1];
+            this.children = leaf ? null : new Node[maxKeys + 2];
+        }
+
+        boolean isLeaf() {
+            return children == null;
+        }
+    }
+
+    public BPlusTree() {
+        this(128);
+    }
+
+    /**
+     * @param maxKeys most keys in a node, at least 3
+     */
+    public BPlusTree(int maxKeys) {
+        if (maxKeys < 3) {
+            throw new IllegalArgumentException("A node needs room for at least 3 keys");
+        }
+        this.maxKeys = maxKeys;
+        this.root = new Node(maxKeys, true);
+    }
+
+    /**
+     * @return index of the first key in node greater than data, or node.count
+     */
+    @SuppressWarnings("unchecked")
+    private int upperBound(Node node, E data) {
+        int low = 0, high = node.count;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (data.compareTo((E) node.keys[middle]) >= 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * @return index of the first key in node not less than data, or node.count
+     */
+    @SuppressWarnings("unchecked")
+    private int lowerBound(Node node, E data) {
+        int low = 0, high = node.count;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (data.compareTo((E) node.keys[middle]) > 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private Node leafFor(E data) {
+        Node node = this.root;
+        while (!node.isLeaf()) {
+            node = node.children[upperBound(node, data)];
+        }
+        return node;
+    }
+
+    /**
+     * Search from the root down to a leaf, one binary search per node
+     *
+     * @param data toFind
+     * @return true if found else false
+     */
+    public boolean contains(E data) {
+        Node leaf = leafFor(data);
+        int i = lowerBound(leaf, data);
+        return i < leaf.count && data.compareTo(leafKey(leaf, i)) == 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    private E leafKey(Node leaf, int i) {
+        return (E) leaf.keys[i];
+    }
+
+    /**
+     * Implementing iteratively: full nodes are split on the way back up
+     *
+     * @param data toAdd
+     * @return true if added to the tree
+     */
+    public boolean add(E data) {
+        // Path from the root to the leaf and the child taken at each node
+        Node[] path = new Node[64];
+        int[] taken = new int[64];
+        int depth = 0;
+        Node node = this.root;
+        while (!node.isLeaf()) {
+            int i = upperBound(node, data);
+            path[depth] = node;
+            taken[depth++] = i;
+            node = node.children[i];
+        }
+        int position = lowerBound(node, data);
+        if (position < node.count && data.compareTo(leafKey(node, position)) == 0) {
+            // toAdd is already exists in the Tree
+            return false;
+        }
+        insertKey(node, position, data);
+        size++;
+
+        // Split overflowing nodes, from the leaf up
+        while (node.count > maxKeys) {
+            Node right = new Node(maxKeys, node.isLeaf());
+            Object separator;
+            int half = node.count / 2;
+            if (node.isLeaf()) {
+                // The right leaf keeps its first key; a copy goes up as separator
+                right.count = node.count - half;
+                System.arraycopy(node.keys, half, right.keys, 0, right.count);
+                separator = right.keys[0];
+                right.next = node.next;
+                node.next = right;
+            } else {
+                // The middle key moves up and is no longer in either half
+                separator = node.keys[half];
+                right.count = node.count - half - 1;
+                System.arraycopy(node.keys, half + 1, right.keys, 0, right.count);
+                System.arraycopy(node.children, half + 1, right.children, 0, right.count + 1);
+                Arrays.fill(node.children, half + 1, node.count + 1, null);
+            }
+            Arrays.fill(node.keys, half, node.count, null);
+            node.count = half;
+
+            if (depth == 0) {
+                Node newRoot = new Node(maxKeys, false);
+                newRoot.keys[0] = separator;
+                newRoot.children[0] = node;
+                newRoot.children[1] = right;
+                newRoot.count = 1;
+                this.root = newRoot;
+                break;
+            }
+            Node parent = path[--depth];
+            int i = taken[depth];
+            System.arraycopy(parent.children, i + 1, parent.children, i + 2, parent.count - i);
+            parent.children[i + 1] = right;
+            insertKey(parent, i, separator);
+            node = parent;
+        }
+        return true;
+    }
+
+    private static void insertKey(Node node, int position, Object key) {
+        System.arraycopy(node.keys, position, node.keys, position + 1, node.count - position);
+        node.keys[position] = key;
+        node.count++;
+    }
+
+    /**
+     * Visit the keys from from (inclusive) to to (exclusive) in increasing order.
+     *
+     * @param from smallest key to visit
+     * @param to first key not to visit
+     * @param action called for each key
+     */
+    public void forEachInRange(E from, E to, Consumer<? super E> action) {
+        Node leaf = leafFor(from);
+        int i = lowerBound(leaf, from);
+        while (leaf != null) {
+            for (; i < leaf.count; i++) {
+                E key = leafKey(leaf, i);
+                if (key.compareTo(to) >= 0) {
+                    return;
+                }
+                action.accept(key);
+            }
+            leaf = leaf.next;
+            i = 0;
+        }
+    }
+
+    /**
+     * @param from smallest key to return
+     * @param to first key not to return
+     * @return the keys from from (inclusive) to to (exclusive), in increasing order
+     */
+    public List<E> range(E from, E to) {
+        List<E> keys = new ArrayList<E>();
+        forEachInRange(from, to, keys::add);
+        return keys;
+    }
+
+    /**
+     * @return number of keys in the tree
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return number of levels, 1 for a tree that is a single leaf
+     */
+    public int height() {
+        int height = 1;
+        for (Node node = this.root; !node.isLeaf(); node = node.children[0]) {
+            height++;
+        }
+        return height;
+    }
+
+    public static void main(String[] args) {
+        BPlusTree<Integer> tree = new BPlusTree<Integer>();
+        for (int i = 0; i < 1000000; i++) {
+            tree.add(i * 2);
+        }
+        System.out.println("Height should be 4: " + tree.height());
+        System.out.println("Does Tree contains 123456 ? : " + tree.contains(123456));
+        System.out.println("Does Tree contains 123457 ? : " + tree.contains(123457));
+        System.out.println("Add to 42 Tree ? : " + tree.add(42));
+        System.out.println("Range [99990, 100010) should be 99990 .. 100008: " + tree.range(99990, 100010));
+    }
+}
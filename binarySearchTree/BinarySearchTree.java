@@ -6,7 +6,8 @@ import java.util.TreeSet;
  * A class that implements Binary Search Tree data Structure
  */
 public class BinarySearchTree<E extends Comparable<? super E>> {
-    private TreeNode<E> root;
+    // Package-private so that balanced subclasses can rotate at the root
+    TreeNode<E> root;
 
     public BinarySearchTree(E data) {
         this.root = new TreeNode<E>(data, null);
@@ -119,57 +120,3 @@ public class BinarySearchTree<E extends Comparable<? super E>> {
     }
 
 }
-
-/**
- * A class that implements Binary Search Tree Node
- *
- * @param <E>
- */
-class TreeNode<E> {
-    private E data;
-    private TreeNode<E> parent;
-    private TreeNode<E> right;
-    private TreeNode<E> left;
-
-    public TreeNode(E data, TreeNode<E> parent) {
-        this.data = data;
-        this.parent = parent;
-        this.left = null;
-        this.right = null;
-    }
-
-    /**
-     * @param data: Data of the left child node
-     * @return: left child TreeNode
-     */
-    public TreeNode<E> addLeftChild(E data) {
-        this.left = new TreeNode<E>(data, this);
-        return this.left;
-    }
-
-    /**
-     * @param data: Data of the right child node
-     * @return: right child tree node
-     */
-    public TreeNode<E> addRightChild(E data) {
-        this.right = new TreeNode<E>(data, this);
-        return this.right;
-    }
-
-    public TreeNode<E> getLeft() {
-        return left;
-    }
-
-    public TreeNode<E> getRight() {
-        return right;
-    }
-
-    public TreeNode<E> getParent() {
-        return parent;
-    }
-
-    public E getData() {
-        return data;
-    }
-}
-
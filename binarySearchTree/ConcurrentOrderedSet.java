@@ -0,0 +1,171 @@
+package binarySearchTree;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * A class that implements a thread-safe ordered set as a lock-free skip list
+ *
+ * Keys are kept in a sorted linked list; every node also has a random number
+ * of express links that skip ahead, about half as many on each level up, so a
+ * search drops through O(log n) nodes like in a balanced tree. Keys are never
+ * removed, so a node, once linked in, stays where it is forever:
+ * - contains only reads links and never retries or waits, so it's wait-free
+ *   and readers never slow down writers or each other.
+ * - add links the new node into the bottom list with one compareAndSet, which
+ *   is the moment the key becomes visible; the express links are added after it.
+ *   A failed compareAndSet means another add changed that spot, and the search
+ *   is repeated from there. No locks are taken, so adds of different keys
+ *   don't serialize.
+ */
+public class ConcurrentOrderedSet<E extends Comparable<? super E>> {
+    private static final int MAX_LEVEL = 32;
+
+    private static class Node<E> {
+        final E data;
+        // next.get(i) is the following node on level i
+        final AtomicReferenceArray<Node<E>> next;
+
+        Node(E data, int levels) {
+            this.data = data;
+            this.next = new AtomicReferenceArray<Node<E>>(levels);
+        }
+    }
+
+    // Holds no key and has links on every level
+    private final Node<E> head = new Node<E>(null, MAX_LEVEL);
+    private final LongAdder size = new LongAdder();
+
+    /**
+     * Search without writing anything
+     *
+     * @param data toFind
+     * @return true if found else false
+     */
+    public boolean contains(E data) {
+        Node<E> pred = head;
+        for (int level = MAX_LEVEL - 1; level >= 0; level--) {
+            Node<E> curr = pred.next.get(level);
+            while (curr != null) {
+                int compare = data.compareTo(curr.data);
+                if (compare == 0) {
+                    return true;
+                }
+                if (compare < 0) {
+                    break;
+                }
+                pred = curr;
+                curr = pred.next.get(level);
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Find, on every level, the last node before data and the node after it.
+     *
+     * @return true if data is in the bottom list
+     */
+    private boolean find(E data, Node<E>[] preds, Node<E>[] succs) {
+        Node<E> pred = head;
+        for (int level = MAX_LEVEL - 1; level >= 0; level--) {
+            Node<E> curr = pred.next.get(level);
+            while (curr != null && data.compareTo(curr.data) > 0) {
+                pred = curr;
+                curr = pred.next.get(level);
+            }
+            preds[level] = pred;
+            succs[level] = curr;
+        }
+        return succs[0] != null && data.compareTo(succs[0].data) == 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <E> Node<E>[] newNodes() {
+        // Generic arrays can't be created directly; the array only ever holds Node<E>
+        return (Node<E>[]) new Node<?>[MAX_LEVEL];
+    }
+
+    /**
+     * Lock-free insert
+     *
+     * @param data toAdd
+     * @return true if added to the set, false if it was already there
+     */
+    public boolean add(E data) {
+        Node<E>[] preds = newNodes();
+        Node<E>[] succs = newNodes();
+        // 1 level with probability 1/2, 2 with 1/4, ...
+        int levels = Integer.numberOfTrailingZeros(ThreadLocalRandom.current().nextInt() | (1 << (MAX_LEVEL - 1))) + 1;
+        Node<E> node = new Node<E>(data, levels);
+        while (true) {
+            if (find(data, preds, succs)) {
+                // toAdd is already exists in the set
+                return false;
+            }
+            for (int level = 0; level < levels; level++) {
+                node.next.set(level, succs[level]);
+            }
+            if (preds[0].next.compareAndSet(0, succs[0], node)) {
+                break;
+            }
+        }
+        size.increment();
+        // The key is in the set now; the express links only speed up searches
+        for (int level = 1; level < levels; level++) {
+            while (!preds[level].next.compareAndSet(level, succs[level], node)) {
+                find(data, preds, succs);
+                node.next.set(level, succs[level]);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return number of keys in the set; may miss adds that are still running
+     */
+    public int size() {
+        return size.intValue();
+    }
+
+    /**
+     * Visit the keys in increasing order. Keys added during the walk
+     * may or may not be visited.
+     *
+     * @param action called for each key
+     */
+    public void forEach(Consumer<? super E> action) {
+        for (Node<E> node = head.next.get(0); node != null; node = node.next.get(0)) {
+            action.accept(node.data);
+        }
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        ConcurrentOrderedSet<Integer> set = new ConcurrentOrderedSet<Integer>();
+        int threads = 8, perThread = 100000;
+        List<Thread> writers = new ArrayList<Thread>();
+        for (int t = 0; t < threads; t++) {
+            int first = t;
+            // Thread t adds t, t + 8, t + 16, ... and every key once more
+            Thread writer = new Thread(() -> {
+                for (int i = 0; i < perThread; i++) {
+                    set.add(first + i * threads);
+                    set.add(first + i * threads);
+                }
+            });
+            writer.start();
+            writers.add(writer);
+        }
+        for (Thread writer : writers) {
+            writer.join();
+        }
+        System.out.println("Size should be " + threads * perThread + ": " + set.size());
+        System.out.println("Does set contains 765432 ? : " + set.contains(765432));
+        System.out.println("Does set contains -1 ? : " + set.contains(-1));
+        System.out.println("Add to 42 set ? : " + set.add(42));
+    }
+}
@@ -0,0 +1,161 @@
+package binarySearchTree;
+
+/**
+ * A class that implements a self-balancing Binary Search Tree (red-black tree)
+ *
+ * Every node is red or black; the root is black, a red node has no red child,
+ * and every path from a node down to a missing child passes the same number of
+ * black nodes. So the longest path is at most twice the shortest one and the
+ * height stays below 2 log2(n + 1), even when keys are added in sorted order.
+ * add inserts like BinarySearchTree and then restores these rules with recolorings
+ * and at most two rotations; contains is inherited unchanged.
+ */
+public class RedBlackTree<E extends Comparable<? super E>> extends BinarySearchTree<E> {
+
+    public RedBlackTree(E data) {
+        super(data);
+        this.root.setRed(false);
+    }
+
+    /**
+     * Implementing iteratively, then rebalancing
+     *
+     * @param data toAdd
+     * @return true if added to the tree
+     */
+    @Override
+    public boolean add(E data) {
+        TreeNode<E> traverseNode = this.root;
+        TreeNode<E> added;
+        while (true) {
+            int compare = data.compareTo(traverseNode.getData());
+            if (compare > 0) {
+                // toAdd is greater than node's data. Go to right subtree
+                if (traverseNode.getRight() == null) {
+                    added = traverseNode.addRightChild(data);
+                    break;
+                }
+                traverseNode = traverseNode.getRight();
+            } else if (compare < 0) {
+                // toAdd is less than node's data. Go to left subtree
+                if (traverseNode.getLeft() == null) {
+                    added = traverseNode.addLeftChild(data);
+                    break;
+                }
+                traverseNode = traverseNode.getLeft();
+            } else {
+                // toAdd is already exists in the Tree
+                return false;
+            }
+        }
+        fixAfterAdd(added);
+        return true;
+    }
+
+    /**
+     * The new node is red; the only rule it can break is a red node with a red parent.
+     */
+    private void fixAfterAdd(TreeNode<E> node) {
+        while (node != this.root && node.getParent().isRed()) {
+            TreeNode<E> parent = node.getParent();
+            // parent is red, so it isn't the root and has a parent
+            TreeNode<E> grandparent = parent.getParent();
+            boolean parentIsLeft = parent == grandparent.getLeft();
+            TreeNode<E> uncle = parentIsLeft ? grandparent.getRight() : grandparent.getLeft();
+            if (uncle != null && uncle.isRed()) {
+                // Red uncle: push the grandparent's black down and go on from the grandparent
+                parent.setRed(false);
+                uncle.setRed(false);
+                grandparent.setRed(true);
+                node = grandparent;
+            } else {
+                // Black uncle: turn the zig-zag into a straight line first
+                if (parentIsLeft && node == parent.getRight()) {
+                    rotateLeft(parent);
+                    parent = node;
+                } else if (!parentIsLeft && node == parent.getLeft()) {
+                    rotateRight(parent);
+                    parent = node;
+                }
+                parent.setRed(false);
+                grandparent.setRed(true);
+                if (parentIsLeft) {
+                    rotateRight(grandparent);
+                } else {
+                    rotateLeft(grandparent);
+                }
+                break;
+            }
+        }
+        this.root.setRed(false);
+    }
+
+    /**
+     * Move node's right child up into its place; node becomes its left child.
+     */
+    private void rotateLeft(TreeNode<E> node) {
+        TreeNode<E> child = node.getRight();
+        node.setRight(child.getLeft());
+        if (child.getLeft() != null) {
+            child.getLeft().setParent(node);
+        }
+        replaceChild(node, child);
+        child.setLeft(node);
+        node.setParent(child);
+    }
+
+    /**
+     * Move node's left child up into its place; node becomes its right child.
+     */
+    private void rotateRight(TreeNode<E> node) {
+        TreeNode<E> child = node.getLeft();
+        node.setLeft(child.getRight());
+        if (child.getRight() != null) {
+            child.getRight().setParent(node);
+        }
+        replaceChild(node, child);
+        child.setRight(node);
+        node.setParent(child);
+    }
+
+    /**
+     * Put replacement where node hangs from its parent (or at the root).
+     */
+    private void replaceChild(TreeNode<E> node, TreeNode<E> replacement) {
+        TreeNode<E> parent = node.getParent();
+        replacement.setParent(parent);
+        if (parent == null) {
+            this.root = replacement;
+        } else if (node == parent.getLeft()) {
+            parent.setLeft(replacement);
+        } else {
+            parent.setRight(replacement);
+        }
+    }
+
+    /**
+     * @return number of nodes on the longest path from the root down
+     */
+    public int height() {
+        return height(this.root);
+    }
+
+    private int height(TreeNode<E> node) {
+        if (node == null) {
+            return 0;
+        }
+        return 1 + Math.max(height(node.getLeft()), height(node.getRight()));
+    }
+
+    public static void main(String[] args) {
+        RedBlackTree<Integer> tree = new RedBlackTree<Integer>(0);
+        // Sorted keys: a plain BinarySearchTree would become a list of 1000000 nodes
+        for (int i = 1; i < 1000000; i++) {
+            tree.add(i);
+        }
+        System.out.println("Height should be at most 40: " + tree.height());
+        System.out.println("Does Tree contains 765432 ? : " + tree.contains(765432));
+        System.out.println("Does Tree contains -1 ? : " + tree.contains(-1));
+        System.out.println("Add to 42 Tree ? : " + tree.add(42));
+    }
+}
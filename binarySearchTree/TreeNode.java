@@ -0,0 +1,77 @@
+package binarySearchTree;
+
+/**
+ * A class that implements Binary Search Tree Node
+ *
+ * @param <E>
+ */
+class TreeNode<E> {
+    private E data;
+    private TreeNode<E> parent;
+    private TreeNode<E> right;
+    private TreeNode<E> left;
+    // Color for RedBlackTree; new nodes are red
+    private boolean red;
+
+    public TreeNode(E data, TreeNode<E> parent) {
+        this.data = data;
+        this.parent = parent;
+        this.left = null;
+        this.right = null;
+        this.red = true;
+    }
+
+    /**
+     * @param data: Data of the left child node
+     * @return: left child TreeNode
+     */
+    public TreeNode<E> addLeftChild(E data) {
+        this.left = new TreeNode<E>(data, this);
+        return this.left;
+    }
+
+    /**
+     * @param data: Data of the right child node
+     * @return: right child tree node
+     */
+    public TreeNode<E> addRightChild(E data) {
+        this.right = new TreeNode<E>(data, this);
+        return this.right;
+    }
+
+    public TreeNode<E> getLeft() {
+        return left;
+    }
+
+    public TreeNode<E> getRight() {
+        return right;
+    }
+
+    public TreeNode<E> getParent() {
+        return parent;
+    }
+
+    public E getData() {
+        return data;
+    }
+
+    void setLeft(TreeNode<E> left) {
+        this.left = left;
+    }
+
+    void setRight(TreeNode<E> right) {
+        this.right = right;
+    }
+
+    void setParent(TreeNode<E> parent) {
+        this.parent = parent;
+    }
+
+    boolean isRed() {
+        return red;
+    }
+
+    void setRed(boolean red) {
+        this.red = red;
+    }
+}